@@ -0,0 +1,43 @@
+package com.fractalgs.benchmarks;
+
+import com.fractalgs.services.managers.ChestManager;
+import com.fractalgs.services.managers.HeadManager;
+import com.fractalgs.services.managers.LegsManager;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArmorTierBenchmark {
+
+    @Param({"EMPTY", "LOST", "ANCIENT", "MIXED", "VANILLA"})
+    public StandIns.Loadout loadout;
+
+    private ItemContainer armor;
+
+    @Setup
+    public void setup() {
+        armor = StandIns.armor(loadout);
+    }
+
+    @Benchmark
+    public int chestTier() {
+        return ChestManager.getEquippedTier(armor);
+    }
+
+    @Benchmark
+    public int legsTier() {
+        return LegsManager.getEquippedTier(armor);
+    }
+
+    @Benchmark
+    public int headTier() {
+        return HeadManager.getEquippedTier(armor);
+    }
+}
@@ -0,0 +1,46 @@
+package com.fractalgs.benchmarks;
+
+import com.fractalgs.services.events.NoDamageEvent;
+import com.fractalgs.utils.ArmorUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-hit cost of the armor damage rules: one tier lookup per armor piece is measured by
+ * {@link ArmorTierBenchmark}, this covers the cause matching and the thorns amount on top.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageBenchmark {
+
+    @Param({"Fall", "Fire", "Physical", "Projectile", "Drowning", "Poison", "Suffocation"})
+    public String cause;
+
+    @Param({"0", "3"})
+    public int tier;
+
+    @Param({"0.4", "12.0"})
+    public float amount;
+
+    @Benchmark
+    public int resolveCause() {
+        return NoDamageEvent.resolve(cause, tier, tier, tier);
+    }
+
+    @Benchmark
+    public void resolveAndThorns(Blackhole blackhole) {
+
+        int outcome = NoDamageEvent.resolve(cause, tier, tier, tier);
+
+        blackhole.consume(outcome);
+
+        if ((outcome & (NoDamageEvent.THORNS_CHEST | NoDamageEvent.THORNS_HEAD)) != 0)
+            blackhole.consume(ArmorUtils.getThornsAmount(amount, tier));
+    }
+}
@@ -0,0 +1,105 @@
+package com.fractalgs.benchmarks;
+
+import com.fractalgs.data.RecipeIndex;
+import com.fractalgs.data.ThermalRecipe;
+import com.hypixel.hytale.protocol.ItemResourceType;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups against a recipe index shaped like a large modpack: mostly item recipes plus a few
+ * resource-type and tag recipes, and the cost of reloading one recipe into it, which should not
+ * grow with the index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeBenchmark {
+
+    @Param({"50", "2000"})
+    public int recipes;
+
+    private RecipeIndex index;
+
+    private String hitItemId;
+
+    private Map<String, RecipeIndex.Entry> reloaded;
+
+    private ItemResourceType[] matchingResources;
+    private ItemResourceType[] otherResources;
+
+    private IntSet matchingTags;
+    private IntSet otherTags;
+
+    @Setup
+    public void setup() {
+
+        Map<String, RecipeIndex.Entry> entries = new HashMap<>();
+
+        for (int i = 0; i < recipes; i++)
+            entries.put("Recipe_Ore_" + i, new RecipeIndex.Entry("Ore_" + i, null, 0,
+                    new ThermalRecipe("Ingot_" + i, 1, 1, false)));
+
+        entries.put("Recipe_Meat", new RecipeIndex.Entry(null, "Meat", 7,
+                new ThermalRecipe("Cooked_Meat", 1, 1, true)));
+        entries.put("Recipe_Log", new RecipeIndex.Entry(null, "Wood_Log", 11,
+                new ThermalRecipe("Charcoal", 1, 1, false)));
+
+        index = new RecipeIndex();
+
+        index.apply(entries, List.of());
+
+        reloaded = Map.of("Recipe_Ore_0", new RecipeIndex.Entry("Ore_0", null, 0,
+                new ThermalRecipe("Ingot_0", 1, 1, false)));
+
+        hitItemId = "Ore_" + (recipes / 2);
+
+        matchingResources = StandIns.resourceTypes("Fuel", "Meat");
+        otherResources = StandIns.resourceTypes("Fuel", "Stone");
+
+        matchingTags = new IntOpenHashSet(new int[]{3, 5, 11});
+        otherTags = new IntOpenHashSet(new int[]{3, 5, 13});
+    }
+
+    @Benchmark
+    public ThermalRecipe itemIdHit() {
+        return index.byItemId(hitItemId);
+    }
+
+    @Benchmark
+    public ThermalRecipe resourceTypeHit() {
+        return index.byResourceTypesOrTags(matchingResources, null);
+    }
+
+    @Benchmark
+    public ThermalRecipe tagHit() {
+        return index.byResourceTypesOrTags(otherResources, matchingTags);
+    }
+
+    @Benchmark
+    public ThermalRecipe miss() {
+
+        ThermalRecipe byId = index.byItemId("Rock_Stone");
+
+        return byId != null
+                ? byId
+                : index.byResourceTypesOrTags(otherResources, otherTags);
+    }
+
+    @Benchmark
+    public int reloadOne() {
+
+        index.apply(reloaded, List.of());
+
+        return index.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fractalgs.benchmarks;
+
+import com.hypixel.hytale.protocol.ItemResourceType;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+/**
+ * Lightweight stand-ins for the objects the hot paths read. A real {@code Player} can't exist
+ * outside a running server, so the benchmarks drive the {@code ItemContainer} entry points with
+ * plain in-memory containers and stacks instead, and the simulator hands the managers a
+ * {@code PlayerHandle} stand-in backed by an {@link #inventory}.
+ */
+public final class StandIns {
+
+    private static final short ARMOR_SLOTS = 4;
+
+    public enum Loadout {
+
+        EMPTY(),
+        LOST("Lost_Head", "Lost_Chest", "Lost_Legs", "Lost_Hands"),
+        ANCIENT("Ancient_Head", "Ancient_Chest", "Ancient_Legs", "Ancient_Hands"),
+        MIXED("Old_Head", "Ancient_Chest", "Lost_Legs"),
+        VANILLA("Armor_Iron_Head", "Armor_Iron_Chest", "Armor_Iron_Legs", "Armor_Iron_Hands");
+
+        private final String[] itemIds;
+
+        Loadout(String... itemIds) {
+            this.itemIds = itemIds;
+        }
+    }
+
+    private StandIns() {}
+
+    public static ItemContainer armor(Loadout loadout) {
+
+        ItemContainer armor = new SimpleItemContainer(ARMOR_SLOTS);
+
+        for (String itemId : loadout.itemIds)
+            armor.addItemStack(new ItemStack(itemId, 1));
+
+        return armor;
+    }
+
+    /**
+     * Returns an inventory wearing {@code loadout} and holding a stack of {@code heldItemId} in the
+     * active hotbar slot, or nothing if it's {@code null}.
+     */
+    public static Inventory inventory(Loadout loadout, String heldItemId, int heldQuantity) {
+
+        Inventory inventory = new Inventory();
+
+        for (String itemId : loadout.itemIds)
+            inventory.getArmor().addItemStack(new ItemStack(itemId, 1));
+
+        if (heldItemId != null)
+            inventory.getHotbar().addItemStack(new ItemStack(heldItemId, heldQuantity));
+
+        return inventory;
+    }
+
+    public static ItemResourceType[] resourceTypes(String... ids) {
+
+        ItemResourceType[] resourceTypes = new ItemResourceType[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+
+            resourceTypes[i] = new ItemResourceType();
+            resourceTypes[i].id = ids[i];
+
+        }
+
+        return resourceTypes;
+    }
+}
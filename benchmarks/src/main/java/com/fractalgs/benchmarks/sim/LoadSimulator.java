@@ -0,0 +1,268 @@
+package com.fractalgs.benchmarks.sim;
+
+import com.fractalgs.benchmarks.StandIns;
+import com.fractalgs.data.RecipeIndex;
+import com.fractalgs.data.ThermalRecipe;
+import com.fractalgs.services.events.FlyEvent;
+import com.fractalgs.services.events.NoDamageEvent;
+import com.fractalgs.services.managers.ChestManager;
+import com.fractalgs.services.managers.HandsManager;
+import com.fractalgs.services.managers.HeadManager;
+import com.fractalgs.services.managers.LegsManager;
+import com.fractalgs.services.managers.PlayerJoinManager;
+import com.fractalgs.services.managers.PlayerLifecycleManager;
+import com.fractalgs.utils.ArmorUtils;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.metrics.LatencyHistogram;
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless load simulation of the plugin's world-thread work.
+ * <p>
+ * Players are added in steps. Each simulated second every player may swap armor, change the held
+ * item, take damage, press the gravity inverter or reconnect. The players are {@link SimPlayer}
+ * stand-ins handed to the real {@link HandsManager}, {@link ChestManager} and {@link FlyEvent}, so
+ * their loops, light budget and flight expiry run unchanged against a {@link SimWorld}. Joins and
+ * reconnects are queued on the real {@link PlayerJoinManager}, which settles them in one batch per
+ * world rather than with a timer per player. Disconnects go through the real
+ * {@link PlayerLifecycleManager} teardown, so heap growth at a steady player count points at a
+ * per-player leak.
+ * <p>
+ * After every step the simulator prints tick time percentiles, live threads, heap growth and queue
+ * depths, so a regression in any of them shows up as a curve rather than a single number.
+ * <p>
+ * Usage: {@code LoadSimulator [secondsPerStep] [playerCounts...]}, e.g. {@code LoadSimulator 20 50 100 200 400}.
+ */
+public class LoadSimulator {
+
+    private static final int TPS = 30;
+
+    private static final int ARMOR_CHECK_DELAY_TICKS = 1;
+
+    /**
+     * Players are spread over a square this many blocks wide, so the light budget sees some clusters.
+     */
+    private static final int SPREAD_BLOCKS = 256;
+
+    private static final double ARMOR_SWAPS_PER_SECOND = 1.0 / 30;
+    private static final double HELD_CHANGES_PER_SECOND = 1.0 / 10;
+    private static final double HITS_PER_SECOND = 1.0;
+    private static final double INVERTER_PRESSES_PER_SECOND = 1.0 / 120;
+    private static final double RECONNECTS_PER_SECOND = 1.0 / 60;
+
+    private static final String[] DAMAGE_CAUSES = {"Fall", "Fire", "Physical", "Projectile", "Drowning", "Poison", "Suffocation"};
+
+    private static final StandIns.Loadout[] LOADOUTS = StandIns.Loadout.values();
+
+    private static final int RECIPES = 500;
+
+    private final List<SimPlayer> players = new ArrayList<>();
+
+    private final AtomicInteger armorSwaps = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger flights = new AtomicInteger();
+    private final AtomicInteger reconnects = new AtomicInteger();
+
+    /**
+     * Held items are indexed recipe inputs or an empty hand: anything else makes the hands manager
+     * fall back to the item asset map, which doesn't exist outside a server.
+     */
+    private final String[] heldItems = {"Ore_1", "Ore_250", "Ore_499", null};
+
+    private final SimWorld world = new SimWorld(TPS, this::tick);
+
+    private final HandsManager hands = new HandsManager(buildRecipeIndex());
+    private final ChestManager chest = new ChestManager();
+
+    private final PlayerJoinManager joins = new PlayerJoinManager(hands::onJoin, chest::onJoin);
+
+    private final PlayerLifecycleManager lifecycle = new PlayerLifecycleManager(joins::onLeave, hands::onLeave, chest::onLeave, FlyEvent::release);
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int secondsPerStep = args.length > 0
+                ? Integer.parseInt(args[0])
+                : 15;
+
+        int[] steps = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{25, 50, 100, 200, 400};
+
+        new LoadSimulator().run(secondsPerStep, steps);
+    }
+
+    private void run(int secondsPerStep, int[] steps) throws InterruptedException {
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        System.gc();
+
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+
+        world.start();
+
+        System.out.printf("%8s %9s %9s %9s %8s %10s %10s %9s %9s %9s%n",
+                "players", "p50 ms", "p99 ms", "max ms", "threads", "heap MiB", "heap +MiB", "queue max", "waiting", "owners");
+
+        for (int target : steps) {
+
+            world.execute(() -> {
+
+                while (players.size() < target)
+                    players.add(join());
+
+            });
+
+            Thread.sleep(secondsPerStep * 1000L);
+
+            LatencyHistogram ticks = world.resetTickTimes();
+
+            int queueDepth = world.resetMaxQueueDepth();
+            int waiting = WorldHelper.getPendingTasks();
+            int threads = Thread.activeCount();
+
+            System.gc();
+
+            long heap = memory.getHeapMemoryUsage().getUsed();
+
+            System.out.printf("%8d %9.2f %9.2f %9.2f %8d %10.1f %10.1f %9d %9d %9d%n",
+                    target,
+                    ticks.getPercentile(50) / 1e6, ticks.getPercentile(99) / 1e6, ticks.getMax() / 1e6,
+                    threads, heap / 1048576.0, (heap - baselineHeap) / 1048576.0, queueDepth, waiting,
+                    PlayerTasks.getPendingOwners());
+        }
+
+        System.out.printf("%nwork done: %d armor swaps, %d hits, %d flights, %d reconnects%n",
+                armorSwaps.get(), hits.get(), flights.get(), reconnects.get());
+
+        world.stop();
+    }
+
+    /**
+     * Runs at the start of every tick on the world thread and rolls each player's actions for it.
+     */
+    private void tick() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < players.size(); i++) {
+
+            SimPlayer player = players.get(i);
+
+            if (roll(random, RECONNECTS_PER_SECOND)) {
+
+                leave(player);
+
+                players.set(i, join());
+
+                reconnects.incrementAndGet();
+
+                continue;
+            }
+
+            if (roll(random, ARMOR_SWAPS_PER_SECOND))
+                swapArmor(player, random);
+
+            if (roll(random, HELD_CHANGES_PER_SECOND))
+                player.setHeldItemId(heldItems[random.nextInt(heldItems.length)]);
+
+            if (roll(random, HITS_PER_SECOND))
+                damage(player, random);
+
+            if (roll(random, INVERTER_PRESSES_PER_SECOND))
+                pressInverter(player);
+
+        }
+    }
+
+    private SimPlayer join() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        SimPlayer player = new SimPlayer(world, LOADOUTS[random.nextInt(LOADOUTS.length)],
+                heldItems[random.nextInt(heldItems.length)],
+                new Vector3d(random.nextInt(SPREAD_BLOCKS), 64, random.nextInt(SPREAD_BLOCKS)));
+
+        joins.enqueue(world, player.getUuid(), () -> player);
+
+        return player;
+    }
+
+    /**
+     * Disconnects through the plugin's own teardown.
+     */
+    private void leave(SimPlayer player) {
+
+        player.setOnline(false);
+
+        lifecycle.release(player.getUuid(), world);
+    }
+
+    /**
+     * Swaps armor and reacts the way the inventory change listeners do: the hands manager right
+     * away, the chest manager a tick later.
+     */
+    private void swapArmor(SimPlayer player, ThreadLocalRandom random) {
+
+        player.setArmor(LOADOUTS[random.nextInt(LOADOUTS.length)]);
+
+        hands.onArmorChanged(player);
+
+        PlayerTasks.waitTicks(player.getUuid(), world, ARMOR_CHECK_DELAY_TICKS, () -> chest.onArmorChanged(player));
+
+        armorSwaps.incrementAndGet();
+    }
+
+    private void damage(SimPlayer player, ThreadLocalRandom random) {
+
+        int chestTier = ChestManager.getEquippedTier(player.getArmor());
+        int headTier = HeadManager.getEquippedTier(player.getArmor());
+        int legsTier = LegsManager.getEquippedTier(player.getArmor());
+
+        int outcome = NoDamageEvent.resolve(DAMAGE_CAUSES[random.nextInt(DAMAGE_CAUSES.length)], chestTier, headTier, legsTier);
+
+        if ((outcome & NoDamageEvent.THORNS_CHEST) != 0)
+            ArmorUtils.getThornsAmount(random.nextFloat() * 20f, chestTier);
+
+        if ((outcome & NoDamageEvent.THORNS_HEAD) != 0)
+            ArmorUtils.getThornsAmount(random.nextFloat() * 20f, headTier);
+
+        hits.incrementAndGet();
+    }
+
+    private void pressInverter(SimPlayer player) {
+
+        FlyEvent.run(player, FlyEvent.ANTI_GRAVITY_TIER_1);
+
+        flights.incrementAndGet();
+    }
+
+    private static boolean roll(ThreadLocalRandom random, double perSecond) {
+        return random.nextDouble() < perSecond / TPS;
+    }
+
+    private static RecipeIndex buildRecipeIndex() {
+
+        Map<String, RecipeIndex.Entry> entries = new HashMap<>();
+
+        for (int i = 0; i < RECIPES; i++)
+            entries.put("Recipe_Ore_" + i, new RecipeIndex.Entry("Ore_" + i, null, 0,
+                    new ThermalRecipe("Ingot_" + i, 1, 1, false)));
+
+        entries.put("Recipe_Log", new RecipeIndex.Entry(null, "Wood_Log", 11,
+                new ThermalRecipe("Charcoal", 1, 1, false)));
+
+        RecipeIndex index = new RecipeIndex();
+
+        index.apply(entries, List.of());
+
+        return index;
+    }
+}
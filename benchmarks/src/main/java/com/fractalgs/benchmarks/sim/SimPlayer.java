@@ -0,0 +1,89 @@
+package com.fractalgs.benchmarks.sim;
+
+import com.fractalgs.benchmarks.StandIns;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.api.TickExecutor;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+
+import java.util.UUID;
+
+/**
+ * In-memory player: a {@link PlayerHandle} stand-in with just the state the managers read, namely
+ * an inventory with armor and a held stack, and a fixed position. Handed to the real managers, it
+ * stays valid until the simulator disconnects it.
+ */
+public class SimPlayer extends PlayerHandle {
+
+    private static final int HELD_QUANTITY = 64;
+
+    private final Vector3d position;
+
+    private volatile StandIns.Loadout loadout;
+    private volatile String heldItemId;
+
+    private volatile Inventory inventory;
+
+    private volatile boolean online = true;
+
+    public SimPlayer(TickExecutor world, StandIns.Loadout loadout, String heldItemId, Vector3d position) {
+
+        super(UUID.randomUUID(), world);
+
+        this.position = position;
+        this.loadout = loadout;
+        this.heldItemId = heldItemId;
+        this.inventory = StandIns.inventory(loadout, heldItemId, HELD_QUANTITY);
+
+    }
+
+    public ItemContainer getArmor() {
+        return inventory.getArmor();
+    }
+
+    /**
+     * Swaps the armor for {@code loadout}; the held stack is refilled.
+     */
+    public void setArmor(StandIns.Loadout loadout) {
+
+        this.loadout = loadout;
+        this.inventory = StandIns.inventory(loadout, heldItemId, HELD_QUANTITY);
+
+    }
+
+    /**
+     * Puts a full stack of {@code heldItemId} in hand, or empties it if {@code null}.
+     */
+    public void setHeldItemId(String heldItemId) {
+
+        this.heldItemId = heldItemId;
+        this.inventory = StandIns.inventory(loadout, heldItemId, HELD_QUANTITY);
+
+    }
+
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    @Override
+    public boolean isValid() {
+        return online;
+    }
+
+    @Override
+    public Inventory getInventory() {
+
+        return online
+                ? inventory
+                : null;
+    }
+
+    @Override
+    public void sendInventory() {}
+
+    @Override
+    public Vector3d getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,179 @@
+package com.fractalgs.benchmarks.sim;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.metrics.LatencyHistogram;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory world: a fixed-rate tick loop on its own thread that drains an {@code execute} queue,
+ * the same contract the plugin's scheduling helpers rely on in a live world. Tasks scheduled for a
+ * later tick wait in a heap the loop checks at the start of every tick.
+ */
+public class SimWorld implements TickExecutor {
+
+    private final int tps;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private record Timed(long tick, long sequence, Runnable task) {}
+
+    private final PriorityQueue<Timed> timed = new PriorityQueue<>(Comparator.comparingLong(Timed::tick).thenComparingLong(Timed::sequence));
+    private long timedSequence = 0;
+
+    private final AtomicLong tick = new AtomicLong();
+
+    private final Runnable onTick;
+
+    private volatile boolean alive = true;
+
+    private volatile LatencyHistogram tickTimes = new LatencyHistogram();
+    private volatile int maxQueueDepth = 0;
+
+    private Thread thread;
+
+    public SimWorld(int tps, Runnable onTick) {
+
+        this.tps = tps;
+        this.onTick = onTick;
+
+    }
+
+    public void start() {
+
+        thread = new Thread(this::loop, "SimWorld");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+
+        alive = false;
+
+        thread.join();
+    }
+
+    /**
+     * Returns the tick statistics gathered since the previous call and starts a new window.
+     */
+    public LatencyHistogram resetTickTimes() {
+
+        LatencyHistogram previous = tickTimes;
+
+        tickTimes = new LatencyHistogram();
+
+        return previous;
+    }
+
+    public int resetMaxQueueDepth() {
+
+        int previous = maxQueueDepth;
+
+        maxQueueDepth = 0;
+
+        return previous;
+    }
+
+    @Override
+    public int getTps() {
+        return tps;
+    }
+
+    @Override
+    public long getTick() {
+        return tick.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+
+        tasks.add(task);
+
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Checked by the tick loop itself, so delayed tasks cost no thread, like a world with a native
+     * tick schedule.
+     */
+    @Override
+    public void executeAt(long at, Runnable task) {
+
+        synchronized (timed) {
+
+            timed.add(new Timed(at, timedSequence++, task));
+
+        }
+    }
+
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+
+    private void loop() {
+
+        long period = 1_000_000_000L / tps;
+        long next = System.nanoTime();
+
+        while (alive) {
+
+            long start = System.nanoTime();
+
+            long now = tick.incrementAndGet();
+
+            synchronized (timed) {
+
+                while (!timed.isEmpty()
+                        && timed.peek().tick() <= now)
+                    execute(timed.poll().task());
+
+            }
+
+            maxQueueDepth = Math.max(maxQueueDepth, queued.get());
+
+            onTick.run();
+
+            Runnable task;
+
+            while ((task = tasks.poll()) != null) {
+
+                queued.decrementAndGet();
+
+                try {
+
+                    task.run();
+
+                } catch (RuntimeException e) {
+
+                    ErrorSink.report("SimWorld.tick", e);
+
+                }
+            }
+
+            tickTimes.record(System.nanoTime() - start);
+
+            next += period;
+
+            long sleep = next - System.nanoTime();
+
+            if (sleep > 0) {
+
+                LockSupport.parkNanos(sleep);
+
+            } else {
+
+                next = System.nanoTime();
+
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.fractalgs.benchmarks.sim;
+
+import com.fractalgs.benchmarks.StandIns;
+import com.fractalgs.data.RecipeIndex;
+import com.fractalgs.data.ThermalRecipe;
+import com.fractalgs.services.events.FlyEvent;
+import com.fractalgs.services.managers.ChestManager;
+import com.fractalgs.services.managers.HandsManager;
+import com.fractalgs.services.managers.PlayerJoinManager;
+import com.fractalgs.services.managers.PlayerLifecycleManager;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.hypixel.hytale.math.vector.Vector3d;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Joins stand-in players through the real managers, lets their loops run, disconnects them and
+ * checks that no per-player state is left behind.
+ */
+class PlayerLeakTest {
+
+    private static final int TPS = 30;
+
+    private static final int PLAYERS = 64;
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private final SimWorld world = new SimWorld(TPS, () -> {});
+
+    private final HandsManager hands = new HandsManager(recipes());
+    private final ChestManager chest = new ChestManager();
+
+    private final PlayerJoinManager joins = new PlayerJoinManager(hands::onJoin, chest::onJoin);
+
+    private final PlayerLifecycleManager lifecycle = new PlayerLifecycleManager(joins::onLeave, hands::onLeave, chest::onLeave, FlyEvent::release);
+
+    @AfterEach
+    void stopWorld() throws InterruptedException {
+        world.stop();
+    }
+
+    @Test
+    void disconnectLeavesNoPlayerState() throws InterruptedException {
+
+        world.start();
+
+        List<SimPlayer> players = new ArrayList<>();
+
+        for (int i = 0; i < PLAYERS; i++)
+            players.add(new SimPlayer(world, StandIns.Loadout.ANCIENT, "Ore_1", new Vector3d(i * 4, 64, 0)));
+
+        for (SimPlayer player : players)
+            joins.enqueue(world, player.getUuid(), () -> player);
+
+        world.execute(() -> players.forEach(player -> FlyEvent.run(player, FlyEvent.ANTI_GRAVITY_TIER_2)));
+
+        await("loops to start", () -> hands.getPlayerEntries() > 0
+                && chest.getPlayerEntries() > 0
+                && FlyEvent.getActiveFlights() == PLAYERS);
+
+        for (SimPlayer player : players) {
+
+            player.setOnline(false);
+
+            lifecycle.release(player.getUuid(), world);
+
+        }
+
+        await("teardown", () -> hands.getPlayerEntries() == 0
+                && chest.getPlayerEntries() == 0
+                && FlyEvent.getActiveFlights() == 0);
+
+        assertEquals(0, joins.getPendingJoins());
+        assertEquals(0, PlayerTasks.getPendingOwners());
+    }
+
+    @Test
+    void leaveBeforeBatchDropsTheJoin() throws InterruptedException {
+
+        world.start();
+
+        SimPlayer player = new SimPlayer(world, StandIns.Loadout.ANCIENT, "Ore_1", new Vector3d(0, 64, 0));
+
+        joins.enqueue(world, player.getUuid(), () -> player);
+
+        player.setOnline(false);
+
+        lifecycle.release(player.getUuid(), world);
+
+        assertEquals(0, joins.getPendingJoins());
+
+        Thread.sleep(TIMEOUT_MILLIS / 10);
+
+        assertEquals(0, hands.getPlayerEntries());
+        assertEquals(0, PlayerTasks.getPendingOwners());
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (!condition.getAsBoolean()
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        assertTrue(condition.getAsBoolean(), "timed out waiting for " + what);
+    }
+
+    private static RecipeIndex recipes() {
+
+        RecipeIndex index = new RecipeIndex();
+
+        index.apply(Map.of("Recipe_Ore_1", new RecipeIndex.Entry("Ore_1", null, 0,
+                new ThermalRecipe("Ingot_1", 1, 1, false))), List.of());
+
+        return index;
+    }
+}
@@ -0,0 +1,164 @@
+package com.fractalgs.data.store;
+
+import com.fractalgs.data.OreVeinFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Saves and loads chunk records through each {@link OreStore}, and merges saves from two
+ * {@link LockedFileOreStore}s standing in for two server processes on one directory.
+ */
+class OreStoreTest {
+
+    private static final String WORLD = "default";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void flatFileRoundTrips() throws IOException {
+
+        roundTrip(new FlatFileOreStore(directory), new FlatFileOreStore(directory));
+
+        assertTrue(Files.exists(directory.resolve(WORLD + ".dat")));
+        assertFalse(Files.exists(directory.resolve(WORLD + ".dat.tmp")));
+    }
+
+    @Test
+    void flatFileSaveReplacesTheWholeFile() throws IOException {
+
+        FlatFileOreStore store = new FlatFileOreStore(directory);
+
+        store.save(WORLD, chunks(1L, new int[]{7}, 2L, new int[]{8}), Set.of(1L, 2L), (key, ores) -> {});
+        store.save(WORLD, chunks(3L, new int[]{9}), Set.of(3L), (key, ores) -> {});
+
+        Map<Long, int[]> loaded = load(new FlatFileOreStore(directory));
+
+        assertEquals(Set.of(3L), loaded.keySet());
+        assertArrayEquals(new int[]{9}, loaded.get(3L));
+    }
+
+    @Test
+    void lockedFileRoundTrips() throws IOException {
+
+        roundTrip(new LockedFileOreStore(directory), new LockedFileOreStore(directory));
+
+        assertFalse(Files.exists(directory.resolve(WORLD + ".dat.tmp")));
+    }
+
+    @Test
+    void memoryRoundTrips() throws IOException {
+
+        MemoryOreStore store = new MemoryOreStore();
+
+        roundTrip(store, store);
+    }
+
+    @Test
+    void memoryKeepsACopy() throws IOException {
+
+        MemoryOreStore store = new MemoryOreStore();
+
+        Map<Long, int[]> chunks = chunks(1L, new int[]{7});
+
+        store.save(WORLD, chunks, chunks.keySet(), (key, ores) -> {});
+
+        chunks.put(2L, new int[]{8});
+
+        assertEquals(Set.of(1L), load(store).keySet());
+    }
+
+    @Test
+    void lockedFileMergesOtherProcesses() throws IOException {
+
+        LockedFileOreStore first = new LockedFileOreStore(directory);
+        LockedFileOreStore second = new LockedFileOreStore(directory);
+
+        first.save(WORLD, chunks(1L, new int[]{7}), Set.of(1L), (key, ores) -> {});
+
+        Map<Long, int[]> discovered = new HashMap<>();
+
+        second.save(WORLD, chunks(2L, new int[]{8}), Set.of(2L), discovered::put);
+
+        assertEquals(Set.of(1L), discovered.keySet());
+        assertArrayEquals(new int[]{7}, discovered.get(1L));
+
+        discovered.clear();
+
+        first.save(WORLD, chunks(1L, new int[]{70}, 2L, new int[]{80}), Set.of(1L), discovered::put);
+
+        assertTrue(discovered.isEmpty());
+
+        Map<Long, int[]> loaded = load(new LockedFileOreStore(directory));
+
+        assertEquals(Set.of(1L, 2L), loaded.keySet());
+        assertArrayEquals(new int[]{70}, loaded.get(1L));
+        assertArrayEquals(new int[]{8}, loaded.get(2L));
+    }
+
+    @Test
+    void createRefusesUnknownKinds() {
+
+        assertTrue(OreStore.create("file", directory) instanceof FlatFileOreStore);
+        assertTrue(OreStore.create("locked", directory) instanceof LockedFileOreStore);
+        assertTrue(OreStore.create("memory", directory) instanceof MemoryOreStore);
+
+        assertThrows(IllegalArgumentException.class, () -> OreStore.create("lockd", directory));
+    }
+
+    /**
+     * Saves through {@code writer} and checks {@code reader} loads the same chunks, including one
+     * without ores.
+     */
+    private static void roundTrip(OreStore writer, OreStore reader) throws IOException {
+
+        Map<Long, int[]> chunks = chunks(1L, new int[]{1, 2, 3}, -5L, OreVeinFeature.NO_ORES);
+
+        writer.save(WORLD, chunks, chunks.keySet(), (key, ores) -> {});
+
+        Map<Long, int[]> loaded = load(reader);
+
+        assertEquals(chunks.keySet(), loaded.keySet());
+
+        for (Map.Entry<Long, int[]> chunk : chunks.entrySet())
+            assertArrayEquals(chunk.getValue(), loaded.get(chunk.getKey()));
+
+        assertTrue(load(reader, "other").isEmpty());
+    }
+
+    private static Map<Long, int[]> load(OreStore store) throws IOException {
+        return load(store, WORLD);
+    }
+
+    private static Map<Long, int[]> load(OreStore store, String world) throws IOException {
+
+        Map<Long, int[]> loaded = new HashMap<>();
+
+        assertEquals(store.load(world, loaded::put), loaded.size());
+
+        return loaded;
+    }
+
+    private static Map<Long, int[]> chunks(Object... pairs) {
+
+        Map<Long, int[]> chunks = new HashMap<>();
+
+        for (int i = 0; i < pairs.length; i += 2)
+            chunks.put((Long) pairs[i], (int[]) pairs[i + 1]);
+
+        return chunks;
+    }
+}
@@ -1,7 +1,21 @@
 package com.fractalgs;
 
+import com.fractalgs.services.commands.FractalCommand;
+import com.fractalgs.services.events.BlockBreakEvent;
+import com.fractalgs.services.events.BlockPlaceEvent;
+import com.fractalgs.services.events.EscapeButtonEvent;
+import com.fractalgs.services.events.FlyEvent;
 import com.fractalgs.services.events.NoDamageEvent;
 import com.fractalgs.services.managers.*;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.MovementModifierStack;
+import com.fractalgs.utils.PluginIO;
+import com.fractalgs.utils.PluginSettings;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
@@ -16,7 +30,10 @@ public class Main extends JavaPlugin {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    private static final long IO_DRAIN_DEADLINE_MILLIS = 10_000L;
+
     private OreGenerationManager oreGenerationManager;
+    private HandsManager handsManager;
 
     public Main(@Nonnull JavaPluginInit init) {
         super(init);
@@ -25,17 +42,46 @@ public class Main extends JavaPlugin {
     @Override
     public void setup() {
 
+        PluginIO.start();
+        ErrorSink.start();
+
+        PluginSettings.load();
+        TickWatchdog.configure();
+
         registerEvents();
+        registerMetrics();
+
+        WorldShards.register(this);
+
+        HeadManager headManager = new HeadManager();
+        ChestManager chestManager = new ChestManager();
+        LegsManager legsManager = new LegsManager();
+        this.handsManager = new HandsManager();
 
-        new HeadManager().register(this);
-        new ChestManager().register(this);
-        new LegsManager().register(this);
-        new HandsManager().register(this);
+        headManager.register(this);
+        chestManager.register(this);
+        legsManager.register(this);
+        handsManager.register(this);
+
+        PlayerJoinManager joinManager = new PlayerJoinManager((handle, tiers) -> MovementModifierStack.invalidate(handle), headManager::onJoin, chestManager::onJoin, legsManager::onJoin, handsManager::onJoin);
+
+        joinManager.register(this);
+
+        new PlayerLifecycleManager(joinManager::onLeave, headManager::onLeave, chestManager::onLeave, handsManager::onLeave,
+                FlyEvent::release, InteractionHandlers::release, (uuid, world) -> MovementModifierStack.release(uuid)).register(this);
 
         this.oreGenerationManager = new OreGenerationManager();
         this.oreGenerationManager.register(this);
 
+        new LandingIndexManager().register(this);
+
+        InteractionHandlers.registerJob(EscapeButtonEvent::run, EscapeButtonEvent.COOLDOWN_SECONDS, EscapeButtonEvent.ESCAPE_BUTTON);
+        InteractionHandlers.register(FlyEvent::run, FlyEvent.COOLDOWN_SECONDS, FlyEvent.ANTI_GRAVITY_TIER_1, FlyEvent.ANTI_GRAVITY_TIER_2);
+        InteractionHandlers.register(this);
+
         this.getCodecRegistry(Interaction.CODEC).register("fractal_interaction_hook", InteractionsManager.class, InteractionsManager.CODEC);
+
+        this.getCommandRegistry().registerCommand(new FractalCommand());
     }
 
     @Override
@@ -43,6 +89,24 @@ public class Main extends JavaPlugin {
 
         if (Objects.nonNull(this.oreGenerationManager))
             this.oreGenerationManager.shutdown();
+
+        if (Objects.nonNull(this.handsManager))
+            this.handsManager.shutdown();
+
+        PluginIO.shutdown(IO_DRAIN_DEADLINE_MILLIS);
+
+        PluginMetrics.unregisterMBean();
+
+        ErrorSink.flush();
+    }
+
+    private void registerMetrics() {
+
+        PluginMetrics.gauge("scheduler.pending", WorldHelper::getPendingTasks);
+        PluginMetrics.gauge("fly.active", FlyEvent::getActiveFlights);
+        PluginMetrics.gauge("players.task.owners", PlayerTasks::getPendingOwners);
+
+        PluginMetrics.registerMBean();
     }
 
     private void registerEvents() {
@@ -50,6 +114,8 @@ public class Main extends JavaPlugin {
         try {
 
             EntityStore.REGISTRY.registerSystem(new NoDamageEvent());
+            EntityStore.REGISTRY.registerSystem(new BlockBreakEvent());
+            EntityStore.REGISTRY.registerSystem(new BlockPlaceEvent());
 
         } catch (Exception e) {
 
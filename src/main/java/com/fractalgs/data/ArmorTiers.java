@@ -0,0 +1,10 @@
+package com.fractalgs.data;
+
+/**
+ * Tier of each Fractal armor piece a player wears, {@code 0} when the slot holds none.
+ */
+public record ArmorTiers(int head, int chest, int legs, int hands) {
+
+    public static final ArmorTiers NONE = new ArmorTiers(0, 0, 0, 0);
+
+}
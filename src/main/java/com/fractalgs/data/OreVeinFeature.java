@@ -0,0 +1,183 @@
+package com.fractalgs.data;
+
+import com.fractalgs.utils.ErrorSink;
+import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lost ore veins, as a generation feature over a single chunk.
+ * <p>
+ * Block ids are resolved once from the block assets into an immutable instance, so one feature can
+ * be shared by every generator thread and used while the chunk is still being built. It only
+ * touches the chunk it is given and keeps no state between calls.
+ * <p>
+ * Placed blocks are reported as packed chunk-local positions, {@code x | z << 5 | y << 10}, so a
+ * chunk's ores fit in one small {@code int[]}.
+ */
+public final class OreVeinFeature {
+
+    private static final String[] ORE_CANDIDATES = {
+            "Lost_OreStone"
+    };
+
+    private static final String[] REPLACEABLE_NAMES = {
+            "Rock_Stone"
+    };
+
+    public static final int SAMPLES_PER_CHUNK = 100;
+    private static final int MAX_VEIN_SIZE = 3;
+    private static final int MIN_HEIGHT = 0;
+    private static final int MAX_HEIGHT = 100;
+
+    private static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    public static final int[] NO_ORES = new int[0];
+
+    private final int oreId;
+    private final BlockType oreBlockType;
+
+    private final Set<Integer> replaceableIds;
+
+    private OreVeinFeature(int oreId, BlockType oreBlockType, Set<Integer> replaceableIds) {
+
+        this.oreId = oreId;
+        this.oreBlockType = oreBlockType;
+        this.replaceableIds = Set.copyOf(replaceableIds);
+
+    }
+
+    /**
+     * Resolves the feature from the loaded block assets, or returns {@code null} if the ore block
+     * isn't loaded.
+     */
+    public static OreVeinFeature resolve() {
+
+        BlockTypeAssetMap<String, BlockType> map = BlockType.getAssetMap();
+
+        if (Objects.isNull(map))
+            return null;
+
+        for (String candidate : ORE_CANDIDATES) {
+
+            int id = map.getIndex(candidate);
+
+            if (id <= 0)
+                continue;
+
+            BlockType blockType = map.getAsset(id);
+
+            if (Objects.isNull(blockType))
+                continue;
+
+            Set<Integer> replaceable = new HashSet<>();
+
+            for (String name : REPLACEABLE_NAMES) {
+
+                int replaceableId = map.getIndex(name);
+
+                if (replaceableId > 0)
+                    replaceable.add(replaceableId);
+            }
+
+            return new OreVeinFeature(id, blockType, replaceable);
+        }
+
+        return null;
+    }
+
+    public int getOreId() {
+        return oreId;
+    }
+
+    public static int pack(int localX, int y, int localZ) {
+        return (localX & CHUNK_MASK) | (localZ & CHUNK_MASK) << 5 | y << 10;
+    }
+
+    public static int localX(int packed) {
+        return packed & CHUNK_MASK;
+    }
+
+    public static int localZ(int packed) {
+        return (packed >>> 5) & CHUNK_MASK;
+    }
+
+    public static int y(int packed) {
+        return packed >>> 10;
+    }
+
+    /**
+     * Places veins in {@code chunk} and returns the packed positions of the blocks turned into ore.
+     * A block that fails to read or write is reported and skipped, so the result always lists
+     * exactly the ores that made it into the chunk.
+     */
+    public int[] place(WorldChunk chunk, RandomGenerator random) {
+
+        int[] placed = new int[SAMPLES_PER_CHUNK * MAX_VEIN_SIZE];
+        int count = 0;
+
+        for (int i = 0; i < SAMPLES_PER_CHUNK; i++) {
+
+            int x = random.nextInt(CHUNK_SIZE);
+            int z = random.nextInt(CHUNK_SIZE);
+            int y = random.nextInt(MAX_HEIGHT - MIN_HEIGHT) + MIN_HEIGHT;
+
+            int veinSize = random.nextInt(MAX_VEIN_SIZE) + 1;
+
+            count = placeVein(chunk, random, x, y, z, veinSize, placed, count);
+        }
+
+        return count > 0
+                ? Arrays.copyOf(placed, count)
+                : NO_ORES;
+    }
+
+    private int placeVein(WorldChunk chunk, RandomGenerator random, int startX, int startY, int startZ, int size,
+                          int[] placed, int count) {
+
+        int x = startX;
+        int y = startY;
+        int z = startZ;
+
+        for (int j = 0; j < size; j++) {
+
+            if (x >= 0 && x < CHUNK_SIZE
+                    && z >= 0 && z < CHUNK_SIZE
+                    && y > 0) {
+
+                try {
+
+                    if (replaceableIds.contains(chunk.getBlock(x, y, z))) {
+
+                        chunk.setBlock(x, y, z, oreId, oreBlockType, 0, 0, 0);
+
+                        placed[count++] = pack(x, y, z);
+                    }
+
+                } catch (Exception e) {
+
+                    ErrorSink.report("OreVeinFeature.placeVein", e);
+
+                }
+            }
+
+            switch (random.nextInt(6)) {
+                case 0: x++; break;
+                case 1: x--; break;
+                case 2: y++; break;
+                case 3: y--; break;
+                case 4: z++; break;
+                case 5: z--; break;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,323 @@
+package com.fractalgs.data;
+
+import com.hypixel.hytale.protocol.ItemResourceType;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Index of the thermal recipes known to the Hands armor, updated as recipe assets change.
+ * <p>
+ * Readers see an immutable {@link Snapshot}. Each batch of changes builds the next one and
+ * publishes it with a single volatile write, so a lookup sees either all of a batch or none of it,
+ * and a resource type always resolves through the tag table of the same version.
+ * <p>
+ * Updates come from a single writer and cost O(changed recipes): every input item or tag keeps the
+ * set of recipes that contribute it, and only the keys a change touches are recomputed. The lookup
+ * tables are split into {@link Table#BUCKETS} buckets, and a new snapshot copies only the buckets
+ * those keys fall in, sharing the rest with the one before. When several recipes share an input,
+ * the one registered first wins, so the answer doesn't depend on map iteration order.
+ */
+public final class RecipeIndex {
+
+    /**
+     * One thermal recipe as contributed by a single {@code CraftingRecipe} asset. Exactly one of
+     * {@code inputItemId} and {@code inputTag} is set.
+     */
+    public record Entry(String inputItemId, String inputTag, int inputTagId, ThermalRecipe recipe) {}
+
+    /**
+     * One published version of the lookup tables.
+     */
+    private record Snapshot(Table<String, ThermalRecipe> recipeIds,
+                            Table<Integer, ThermalRecipe> recipeTags,
+                            Table<String, Integer> recipeResourceNames,
+                            int size) {}
+
+    /**
+     * Writer-side bookkeeping, only touched under the instance lock.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Set<String>> itemContributors = new HashMap<>();
+    private final Map<String, Set<String>> tagContributors = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(Table.empty(), Table.empty(), Table.empty(), 0);
+
+    /**
+     * Applies a batch of asset changes. Recipes in {@code removed} are dropped first, then every
+     * entry in {@code upserted} replaces whatever the same recipe contributed before; a {@code null}
+     * value means the recipe is no longer thermal and is dropped as well.
+     */
+    public synchronized void apply(Map<String, Entry> upserted, Collection<String> removed) {
+
+        if (upserted.isEmpty()
+                && removed.isEmpty())
+            return;
+
+        Snapshot current = snapshot;
+
+        Set<String> items = new HashSet<>();
+        Set<String> tags = new HashSet<>();
+
+        for (String recipeId : removed)
+            drop(recipeId, items, tags);
+
+        for (Map.Entry<String, Entry> change : upserted.entrySet()) {
+
+            drop(change.getKey(), items, tags);
+
+            Entry entry = change.getValue();
+
+            if (Objects.isNull(entry))
+                continue;
+
+            entries.put(change.getKey(), entry);
+
+            if (Objects.nonNull(entry.inputItemId())) {
+
+                itemContributors.computeIfAbsent(entry.inputItemId(), k -> new LinkedHashSet<>()).add(change.getKey());
+                items.add(entry.inputItemId());
+
+            } else {
+
+                tagContributors.computeIfAbsent(entry.inputTag(), k -> new LinkedHashSet<>()).add(change.getKey());
+                tags.add(entry.inputTag());
+
+            }
+        }
+
+        Map<String, ThermalRecipe> idChanges = new HashMap<>();
+        Map<Integer, ThermalRecipe> tagChanges = new HashMap<>();
+        Map<String, Integer> nameChanges = new HashMap<>();
+
+        for (String itemId : items)
+            refreshItem(itemId, idChanges);
+
+        for (String tag : tags)
+            refreshTag(tag, current, tagChanges, nameChanges);
+
+        snapshot = new Snapshot(current.recipeIds().with(idChanges),
+                current.recipeTags().with(tagChanges),
+                current.recipeResourceNames().with(nameChanges),
+                entries.size());
+    }
+
+    private void drop(String recipeId, Set<String> items, Set<String> tags) {
+
+        Entry previous = entries.remove(recipeId);
+
+        if (Objects.isNull(previous))
+            return;
+
+        if (Objects.nonNull(previous.inputItemId())) {
+
+            itemContributors.getOrDefault(previous.inputItemId(), Set.of()).remove(recipeId);
+            items.add(previous.inputItemId());
+
+        } else {
+
+            tagContributors.getOrDefault(previous.inputTag(), Set.of()).remove(recipeId);
+            tags.add(previous.inputTag());
+
+        }
+    }
+
+    /**
+     * Records the item's new recipe in {@code changes}, or {@code null} if it has none left.
+     */
+    private void refreshItem(String itemId, Map<String, ThermalRecipe> changes) {
+
+        Entry first = first(itemContributors, itemId);
+
+        changes.put(itemId, Objects.nonNull(first)
+                ? first.recipe()
+                : null);
+    }
+
+    private void refreshTag(String tag, Snapshot current, Map<Integer, ThermalRecipe> tagChanges, Map<String, Integer> nameChanges) {
+
+        Entry first = first(tagContributors, tag);
+
+        if (Objects.isNull(first)) {
+
+            Integer tagIndex = current.recipeResourceNames().get(tag);
+
+            if (Objects.nonNull(tagIndex))
+                tagChanges.put(tagIndex, null);
+
+            nameChanges.put(tag, null);
+
+        } else {
+
+            tagChanges.put(first.inputTagId(), first.recipe());
+            nameChanges.put(tag, first.inputTagId());
+
+        }
+    }
+
+    private Entry first(Map<String, Set<String>> contributors, String key) {
+
+        Set<String> contributing = contributors.get(key);
+
+        if (Objects.isNull(contributing)
+                || contributing.isEmpty()) {
+
+            contributors.remove(key);
+
+            return null;
+        }
+
+        return entries.get(contributing.iterator().next());
+    }
+
+    public ThermalRecipe byItemId(String itemId) {
+        return snapshot.recipeIds().get(itemId);
+    }
+
+    public ThermalRecipe byTagIndex(int tagIndex) {
+        return snapshot.recipeTags().get(tagIndex);
+    }
+
+    public ThermalRecipe byResourceType(String resourceTypeId) {
+        return byResourceType(snapshot, resourceTypeId);
+    }
+
+    private static ThermalRecipe byResourceType(Snapshot current, String resourceTypeId) {
+
+        Integer tagIndex = current.recipeResourceNames().get(resourceTypeId);
+
+        return Objects.nonNull(tagIndex)
+                ? current.recipeTags().get(tagIndex)
+                : null;
+    }
+
+    /**
+     * Resolves an item that has no recipe of its own through its resource types first and then
+     * through its expanded tags. Either argument may be {@code null}.
+     */
+    public ThermalRecipe byResourceTypesOrTags(ItemResourceType[] resourceTypes, IntSet tagIndexes) {
+
+        Snapshot current = snapshot;
+
+        if (Objects.nonNull(resourceTypes)) {
+
+            for (ItemResourceType res : resourceTypes) {
+
+                if (Objects.isNull(res.id))
+                    continue;
+
+                ThermalRecipe byResource = byResourceType(current, res.id);
+
+                if (Objects.nonNull(byResource))
+                    return byResource;
+
+            }
+        }
+
+        if (Objects.nonNull(tagIndexes)) {
+
+            IntIterator it = tagIndexes.iterator();
+
+            while (it.hasNext()) {
+
+                ThermalRecipe byTag = current.recipeTags().get(it.nextInt());
+
+                if (Objects.nonNull(byTag))
+                    return byTag;
+            }
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * An immutable hash table split into fixed buckets. {@link #with} returns a copy in which only
+     * the buckets holding changed keys are new; the others are the same objects as before.
+     */
+    private static final class Table<K, V> {
+
+        private static final int BUCKETS = 256;
+
+        private final Map<K, V>[] buckets;
+
+        private Table(Map<K, V>[] buckets) {
+            this.buckets = buckets;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Table<K, V> empty() {
+            return new Table<>((Map<K, V>[]) new Map[BUCKETS]);
+        }
+
+        private static int bucket(Object key) {
+
+            int h = key.hashCode();
+
+            return (h ^ (h >>> 16)) & (BUCKETS - 1);
+        }
+
+        private V get(Object key) {
+
+            Map<K, V> bucket = buckets[bucket(key)];
+
+            return Objects.nonNull(bucket)
+                    ? bucket.get(key)
+                    : null;
+        }
+
+        /**
+         * Returns the table with {@code changes} applied, a {@code null} value removing its key.
+         */
+        private Table<K, V> with(Map<K, V> changes) {
+
+            if (changes.isEmpty())
+                return this;
+
+            Map<K, V>[] copy = Arrays.copyOf(buckets, BUCKETS);
+            boolean[] copied = new boolean[BUCKETS];
+
+            for (Map.Entry<K, V> change : changes.entrySet()) {
+
+                int index = bucket(change.getKey());
+
+                if (!copied[index]) {
+
+                    copy[index] = Objects.nonNull(copy[index])
+                            ? new HashMap<>(copy[index])
+                            : new HashMap<>();
+
+                    copied[index] = true;
+                }
+
+                if (Objects.isNull(change.getValue())) {
+
+                    copy[index].remove(change.getKey());
+
+                } else {
+
+                    copy[index].put(change.getKey(), change.getValue());
+
+                }
+            }
+
+            for (int i = 0; i < BUCKETS; i++)
+                if (copied[i]
+                        && copy[i].isEmpty())
+                    copy[i] = null;
+
+            return new Table<>(copy);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.fractalgs.data;
+
+public record ThermalRecipe(String outputId, Integer inputQty, Integer outputQty, boolean isCampfire) {}
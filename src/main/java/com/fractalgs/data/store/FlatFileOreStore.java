@@ -0,0 +1,120 @@
+package com.fractalgs.data.store;
+
+import com.fractalgs.data.OreVeinFeature;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * One {@code <world>.dat} file per world, rewritten whole on every save. Each save goes to a
+ * {@code <world>.dat.tmp} beside it that is then renamed over the old file, so a crash mid-save
+ * leaves the previous version intact. Only safe while a single server process uses the directory.
+ */
+public class FlatFileOreStore implements OreStore {
+
+    /**
+     * Leads files that also store ore positions; the first format starts with a non-negative count.
+     */
+    private static final int FORMAT_WITH_ORES = -2;
+
+    private final Path directory;
+
+    public FlatFileOreStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String location(String world) {
+        return directory.resolve(world + ".dat").toString();
+    }
+
+    @Override
+    public int load(String world, BiConsumer<Long, int[]> into) throws IOException {
+        return read(directory.resolve(world + ".dat"), into);
+    }
+
+    @Override
+    public long save(String world, Map<Long, int[]> chunks, Set<Long> changed, BiConsumer<Long, int[]> discovered) throws IOException {
+
+        Files.createDirectories(directory);
+
+        Path file = directory.resolve(world + ".dat");
+        Path temp = directory.resolve(world + ".dat.tmp");
+
+        long written = write(temp, chunks);
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return written;
+    }
+
+    /**
+     * Reads either format, returning 0 for a missing file; chunks from the first one have no
+     * recorded ores.
+     */
+    public static int read(Path file, BiConsumer<Long, int[]> into) throws IOException {
+
+        if (!Files.exists(file))
+            return 0;
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile())))) {
+
+            int header = dis.readInt();
+
+            if (header != FORMAT_WITH_ORES) {
+
+                for (int i = 0; i < header; i++)
+                    into.accept(dis.readLong(), OreVeinFeature.NO_ORES);
+
+                return header;
+            }
+
+            int count = dis.readInt();
+
+            for (int i = 0; i < count; i++) {
+
+                long key = dis.readLong();
+
+                int[] ores = new int[dis.readShort()];
+
+                for (int j = 0; j < ores.length; j++)
+                    ores[j] = dis.readInt();
+
+                into.accept(key, ores.length > 0 ? ores : OreVeinFeature.NO_ORES);
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Writes {@code chunks} in the current format straight into {@code file}, truncating it, and
+     * returns the bytes written. Callers write to a temporary file and move it into place.
+     */
+    public static long write(Path file, Map<Long, int[]> chunks) throws IOException {
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())))) {
+
+            dos.writeInt(FORMAT_WITH_ORES);
+            dos.writeInt(chunks.size());
+
+            for (Map.Entry<Long, int[]> chunk : chunks.entrySet()) {
+
+                dos.writeLong(chunk.getKey());
+                dos.writeShort(chunk.getValue().length);
+
+                for (int packed : chunk.getValue())
+                    dos.writeInt(packed);
+            }
+
+            dos.flush();
+
+            return dos.size();
+        }
+    }
+}
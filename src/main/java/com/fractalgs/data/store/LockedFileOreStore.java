@@ -0,0 +1,148 @@
+package com.fractalgs.data.store;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The flat-file format, made safe for several server processes sharing one directory.
+ * <p>
+ * Each world's file is guarded by an OS lock on a {@code <world>.lock} file beside it, shared for
+ * loads and exclusive for saves. A save merges instead of overwriting: under the lock it reads the
+ * file, keeps chunks other processes recorded, lays the changed chunks on top and swaps the result
+ * in with an atomic rename, so a reader never sees half a file and a crash never loses the old one.
+ * <p>
+ * Writes are batched by the generator's autosave, one merge per world per interval. The last
+ * version read or written is cached and reused while the file's identity, size and modification
+ * time are unchanged, so merges only parse the file again after another process wrote it.
+ */
+public class LockedFileOreStore implements OreStore {
+
+    private record Snapshot(Object key, FileTime modified, long size, Map<Long, int[]> chunks) {
+
+        private boolean matches(BasicFileAttributes attributes) {
+
+            return Objects.equals(key, attributes.fileKey())
+                    && modified.equals(attributes.lastModifiedTime())
+                    && size == attributes.size();
+        }
+    }
+
+    private final Path directory;
+
+    private final Map<String, Snapshot> cache = new ConcurrentHashMap<>();
+
+    public LockedFileOreStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String location(String world) {
+        return directory.resolve(world + ".dat").toString();
+    }
+
+    @Override
+    public int load(String world, BiConsumer<Long, int[]> into) throws IOException {
+
+        Files.createDirectories(directory);
+
+        try (FileChannel channel = openLock(world);
+             FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+
+            Map<Long, int[]> chunks = read(world);
+
+            chunks.forEach(into);
+
+            return chunks.size();
+        }
+    }
+
+    @Override
+    public long save(String world, Map<Long, int[]> chunks, Set<Long> changed, BiConsumer<Long, int[]> discovered) throws IOException {
+
+        Files.createDirectories(directory);
+
+        try (FileChannel channel = openLock(world);
+             FileLock lock = channel.lock()) {
+
+            Map<Long, int[]> merged = new HashMap<>(read(world));
+
+            for (Map.Entry<Long, int[]> chunk : merged.entrySet())
+                if (!chunks.containsKey(chunk.getKey()))
+                    discovered.accept(chunk.getKey(), chunk.getValue());
+
+            for (Map.Entry<Long, int[]> chunk : chunks.entrySet())
+                if (changed.contains(chunk.getKey())
+                        || !merged.containsKey(chunk.getKey()))
+                    merged.put(chunk.getKey(), chunk.getValue());
+
+            Path file = directory.resolve(world + ".dat");
+            Path temp = directory.resolve(world + ".dat.tmp");
+
+            long written = FlatFileOreStore.write(temp, merged);
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            remember(world, file, merged);
+
+            return written;
+        }
+    }
+
+    private FileChannel openLock(String world) throws IOException {
+
+        return FileChannel.open(directory.resolve(world + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Returns the world's chunks as on disk, from the cache when the file hasn't changed. Must hold
+     * the world's lock; the returned map is shared and must not be modified.
+     */
+    private Map<Long, int[]> read(String world) throws IOException {
+
+        Path file = directory.resolve(world + ".dat");
+
+        if (!Files.exists(file)) {
+
+            cache.remove(world);
+
+            return Map.of();
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        Snapshot cached = cache.get(world);
+
+        if (Objects.nonNull(cached)
+                && cached.matches(attributes))
+            return cached.chunks();
+
+        Map<Long, int[]> chunks = new HashMap<>();
+
+        FlatFileOreStore.read(file, chunks::put);
+
+        cache.put(world, new Snapshot(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size(), chunks));
+
+        return chunks;
+    }
+
+    private void remember(String world, Path file, Map<Long, int[]> chunks) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        cache.put(world, new Snapshot(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size(), chunks));
+    }
+}
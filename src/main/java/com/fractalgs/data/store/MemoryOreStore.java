@@ -0,0 +1,39 @@
+package com.fractalgs.data.store;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps every world in memory and writes nothing, so state lasts until the server stops. Meant for
+ * test and benchmark servers that shouldn't leave databases behind.
+ */
+public class MemoryOreStore implements OreStore {
+
+    private final Map<String, Map<Long, int[]>> worlds = new ConcurrentHashMap<>();
+
+    @Override
+    public String location(String world) {
+        return "memory:" + world;
+    }
+
+    @Override
+    public int load(String world, BiConsumer<Long, int[]> into) {
+
+        Map<Long, int[]> chunks = worlds.getOrDefault(world, Map.of());
+
+        chunks.forEach(into);
+
+        return chunks.size();
+    }
+
+    @Override
+    public long save(String world, Map<Long, int[]> chunks, Set<Long> changed, BiConsumer<Long, int[]> discovered) {
+
+        worlds.put(world, new HashMap<>(chunks));
+
+        return 0;
+    }
+}
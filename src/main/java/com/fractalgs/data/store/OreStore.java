@@ -0,0 +1,50 @@
+package com.fractalgs.data.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Where the ore generator keeps its processed chunks, one record per world, each chunk mapped to
+ * the packed positions of the ores placed in it.
+ * <p>
+ * Calls for one world are never concurrent; the generator runs them all on that world's
+ * {@link com.fractalgs.utils.PluginIO} lane, keyed by {@link #location}.
+ */
+public interface OreStore {
+
+    /**
+     * Returns a stable name for a world's record, used as its I/O lane and in events.
+     */
+    String location(String world);
+
+    /**
+     * Passes every chunk recorded for {@code world} to {@code into} and returns how many there were.
+     */
+    int load(String world, BiConsumer<Long, int[]> into) throws IOException;
+
+    /**
+     * Writes {@code chunks}, the full state of {@code world}, of which {@code changed} were
+     * processed or trimmed since the last save. Chunks the store knows of that {@code chunks} lacks
+     * were recorded by another process and are passed to {@code discovered}. Returns the bytes
+     * written.
+     */
+    long save(String world, Map<Long, int[]> chunks, Set<Long> changed, BiConsumer<Long, int[]> discovered) throws IOException;
+
+    /**
+     * Picks a store by its {@code ore.store} name: {@code file} (the default), {@code locked} or
+     * {@code memory}. Any other name is refused rather than read as {@code file}, since a mistyped
+     * {@code locked} would otherwise let several processes overwrite each other's records.
+     */
+    static OreStore create(String kind, Path directory) {
+
+        return switch (kind) {
+            case "file" -> new FlatFileOreStore(directory);
+            case "locked" -> new LockedFileOreStore(directory);
+            case "memory" -> new MemoryOreStore();
+            default -> throw new IllegalArgumentException("Unknown ore.store '" + kind + "', expected file, locked or memory");
+        };
+    }
+}
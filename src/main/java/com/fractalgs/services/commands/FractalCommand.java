@@ -0,0 +1,16 @@
+package com.fractalgs.services.commands;
+
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
+
+public class FractalCommand extends AbstractCommandCollection {
+
+    public FractalCommand() {
+
+        super("fractal", "Fractal Tech administration commands");
+
+        this.requirePermission("fractalgs.command.fractal");
+
+        this.addSubCommand(new StatsCommand());
+        this.addSubCommand(new SlowCommand());
+    }
+}
@@ -0,0 +1,46 @@
+package com.fractalgs.services.commands;
+
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.TickWatchdog.SlowCallback;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+public class SlowCommand extends CommandBase {
+
+    public SlowCommand() {
+
+        super("slow", "Lists the most recent Fractal Tech callbacks that ran over the tick budget");
+
+        this.requirePermission("fractalgs.command.fractal.slow");
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+
+        List<SlowCallback> recent = TickWatchdog.getRecent();
+
+        if (recent.isEmpty()) {
+
+            context.sendMessage(Message.raw("No slow Fractal Tech callbacks recorded."));
+
+            return;
+        }
+
+        for (SlowCallback slow : recent) {
+
+            String location = Objects.nonNull(slow.stack()) && slow.stack().length > 0
+                    ? " at " + slow.stack()[0]
+                    : "";
+
+            context.sendMessage(Message.raw(String.format("%s %s %.1f ms on %s%s",
+                    Instant.ofEpochMilli(slow.timestampMillis()), slow.owner(),
+                    slow.durationNanos() / 1_000_000.0, slow.threadName(), location)));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.fractalgs.services.commands;
+
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import javax.annotation.Nonnull;
+
+public class StatsCommand extends CommandBase {
+
+    public StatsCommand() {
+
+        super("stats", "Shows Fractal Tech timings, counters and gauges");
+
+        this.requirePermission("fractalgs.command.fractal.stats");
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+
+        context.sendMessage(Message.raw("Fractal Tech stats:"));
+
+        for (String line : PluginMetrics.report())
+            context.sendMessage(Message.raw(line));
+    }
+}
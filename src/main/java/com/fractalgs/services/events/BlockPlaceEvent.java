@@ -0,0 +1,45 @@
+package com.fractalgs.services.events;
+
+import com.fractalgs.services.managers.LandingIndexManager;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+public class BlockPlaceEvent extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+
+    public BlockPlaceEvent() {
+        super(PlaceBlockEvent.class);
+    }
+
+    @Nullable
+    @Override
+    public Query<EntityStore> getQuery() {
+        return Player.getComponentType();
+    }
+
+    @Override
+    public void handle(int index,
+                       @Nonnull ArchetypeChunk<EntityStore> chunk,
+                       @Nonnull Store<EntityStore> store,
+                       @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                       @Nonnull PlaceBlockEvent event) {
+
+        if (event.isCancelled())
+            return;
+
+        Vector3i target = event.getTargetBlock();
+
+        if (Objects.nonNull(target))
+            LandingIndexManager.invalidate(store.getExternalData().getWorld(), target.getX(), target.getZ());
+    }
+}
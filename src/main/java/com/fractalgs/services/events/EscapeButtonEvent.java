@@ -1,40 +1,79 @@
 package com.fractalgs.services.events;
 
+import com.fractalgs.services.managers.LandingIndexManager;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.api.AsyncLandingSearch;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.SafeLandingSearch;
+import com.fractalgs.utils.api.SafeLandingSearch.Landing;
+import com.fractalgs.utils.api.ScheduledTask;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.jfr.TeleportSearchEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entity.teleport.Teleport;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class EscapeButtonEvent {
 
-    private static final String ESCAPE_BUTTON = "Ancient_Escape";
+    public static final String ESCAPE_BUTTON = "Ancient_Escape";
 
     private static final int TELEPORT_RADIUS = 1000;
 
-    public static void run(@Nonnull Player player, @Nonnull String itemId) {
+    private static final int MAX_TRIES = 1000;
 
-        if (itemId.equals(ESCAPE_BUTTON))
-            randomTeleport(player);
+    /**
+     * A search still running after this long is given up, so the player always hears back. The
+     * timeout is owned by the player, so it goes away with them, and is cancelled once the search
+     * settles.
+     */
+    private static final int SEARCH_TIMEOUT_SECONDS = 30;
+
+    public static final int COOLDOWN_SECONDS = 10;
+
+    /**
+     * {@link com.fractalgs.services.managers.InteractionHandlers} job; {@code done} runs once the
+     * player has been teleported or told the search has given up.
+     */
+    public static void run(@Nonnull Player player, @Nonnull String itemId, @Nonnull Runnable done) {
+
+        if (itemId.equals(ESCAPE_BUTTON)) {
+
+            randomTeleport(player, done);
+
+        } else {
+
+            done.run();
+
+        }
     }
 
-    private static void randomTeleport(@Nonnull Player player) {
+    private static void randomTeleport(@Nonnull Player player, @Nonnull Runnable done) {
+
+        PlayerHandle handle = PlayerHandle.of(player);
+
+        if (Objects.isNull(handle)) {
 
-        World world = player.getWorld();
+            done.run();
 
-        if (Objects.isNull(world)
-                || Objects.isNull(player.getReference()))
             return;
+        }
+
+        World world = handle.getWorld();
 
-        Vector3d base = readPosition(player);
+        Vector3d base = handle.getPosition();
 
         if (Objects.isNull(base)) base = new Vector3d(0, 80, 0);
 
@@ -42,96 +81,123 @@ public class EscapeButtonEvent {
         int baseY = (int) Math.round(base.y);
         int baseZ = (int) Math.round(base.z);
 
-        int tries = 1000;
+        AtomicBoolean settled = new AtomicBoolean(false);
 
-        world.execute(() -> {
+        AtomicReference<ScheduledTask> timeout = new AtomicReference<>();
 
-            for (int i = 0; i < tries; i++) {
+        Consumer<Landing> onFound = landing -> {
 
-                int x = baseX + ThreadLocalRandom.current().nextInt(-TELEPORT_RADIUS, TELEPORT_RADIUS + 1);
-                int z = baseZ + ThreadLocalRandom.current().nextInt(-TELEPORT_RADIUS, TELEPORT_RADIUS + 1);
+            if (!settle(settled, timeout))
+                return;
 
-                Integer safeY = findSafeCoordY(world, x, baseY, z);
+            teleportPlayer(handle, landing.x(), landing.y(), landing.z());
 
-                if (Objects.isNull(safeY))
-                    continue;
+            done.run();
+        };
 
-                teleportPlayer(player, world, x, safeY, z);
+        Runnable onFailed = () -> {
 
+            if (!settle(settled, timeout))
                 return;
-            }
 
-        });
-    }
+            notifyFailed(handle);
 
-    private static void teleportPlayer(@Nonnull Player player, @Nonnull World world, int x, int y, int z) {
+            done.run();
+        };
 
-        if (Objects.isNull(player.getReference()))
-            return;
+        timeout.set(PlayerTasks.waitTicks(handle.getUuid(), world, SEARCH_TIMEOUT_SECONDS * world.getTps(), onFailed));
 
-        Store<EntityStore> store = player.getReference().getStore();
+        if (settled.get())
+            timeout.get().cancel();
 
-        Teleport teleport = Teleport.createForPlayer(world, new Vector3d(x, y, z), new Vector3f(0, 0, 0));
+        WorldHelper.executeOnWorldThread(world, () -> {
 
-        store.addComponent(player.getReference(), Teleport.getComponentType(), teleport);
-    }
+            try {
 
-    private static Integer findSafeCoordY(@Nonnull World world, int x, int y, int z) {
+                long start = System.nanoTime();
 
-        int minY = 1;
-        int maxY = 255;
+                TeleportSearchEvent jfr = TeleportSearchEvent.start("index");
 
-        int start = clamp(y + 64, minY + 2, maxY - 2);
-        int end = clamp(y - 128, minY + 2, maxY - 2);
+                Landing indexed = LandingIndexManager.pick(world, baseX, baseY, baseZ, TELEPORT_RADIUS);
 
-        for (int coordY = start; coordY >= end; coordY--) {
+                PluginMetrics.TELEPORT_SEARCH_INDEX.record(System.nanoTime() - start);
 
-            BlockType below = world.getBlockType(x, coordY - 1, z);
-            BlockType body = world.getBlockType(x, coordY, z);
-            BlockType head = world.getBlockType(x, coordY + 1, z);
+                TeleportSearchEvent.finish(jfr, Objects.nonNull(indexed)
+                        ? TeleportSearchEvent.FOUND
+                        : TeleportSearchEvent.FAILED);
 
-            if (below == BlockType.UNKNOWN
-                    || body == BlockType.UNKNOWN
-                    || head == BlockType.UNKNOWN)
-                return null;
+                if (Objects.nonNull(indexed)) {
 
-            if (isSolid(below)
-                    && isAir(body)
-                    && isAir(head))
-                return coordY;
-        }
+                    onFound.accept(indexed);
 
-        return null;
-    }
+                    return;
+                }
 
-    private static boolean isAir(BlockType blockType) {
-        return blockType == BlockType.EMPTY;
-    }
+                Runnable searchLoaded = () ->
+                        SafeLandingSearch.start(world, baseX, baseY, baseZ, TELEPORT_RADIUS, MAX_TRIES, onFound, onFailed);
+
+                if (!AsyncLandingSearch.start(world, baseX, baseY, baseZ, TELEPORT_RADIUS, onFound, searchLoaded))
+                    searchLoaded.run();
+
+            } catch (Exception e) {
+
+                ErrorSink.report("EscapeButtonEvent.randomTeleport", e);
+
+                onFailed.run();
 
-    private static boolean isSolid(BlockType blockType) {
-        return blockType != BlockType.EMPTY && blockType != BlockType.UNKNOWN;
+            }
+        });
     }
 
-    private static int clamp(int input, int lowerBound, int upperBound) {
-        return Math.max(lowerBound, Math.min(upperBound, input));
+    /**
+     * Claims the search's outcome and cancels its timeout; returns {@code false} if it was already
+     * settled.
+     */
+    private static boolean settle(AtomicBoolean settled, AtomicReference<ScheduledTask> timeout) {
+
+        if (!settled.compareAndSet(false, true))
+            return false;
+
+        ScheduledTask pendingTimeout = timeout.get();
+
+        if (Objects.nonNull(pendingTimeout))
+            pendingTimeout.cancel();
+
+        return true;
     }
 
-    private static Vector3d readPosition(@Nonnull Player player) {
+    private static void notifyFailed(@Nonnull PlayerHandle handle) {
 
         try {
 
-            TransformComponent transform = player.getTransformComponent();
-
-            if (Objects.isNull(transform))
-                return null;
+            Player player = handle.getPlayer();
 
-            return transform.getPosition();
+            if (Objects.nonNull(player))
+                player.sendMessage(Message.raw("The escape button couldn't find a safe place to land. Try again in a moment."));
 
-        } catch (Throwable ignored) {
+        } catch (Exception e) {
 
-            return null;
+            ErrorSink.report("EscapeButtonEvent.notifyFailed", e);
 
         }
     }
 
+    /**
+     * Teleports within the world the search ran in; a player who has left it since has a new
+     * entity there, so the handle is no longer valid and nothing happens.
+     */
+    private static void teleportPlayer(@Nonnull PlayerHandle handle, int x, int y, int z) {
+
+        if (!handle.isValid())
+            return;
+
+        Store<EntityStore> store = handle.getRef().getStore();
+
+        Teleport teleport = Teleport.createForPlayer(handle.getWorld(), new Vector3d(x, y, z), new Vector3f(0, 0, 0));
+
+        store.addComponent(handle.getRef(), Teleport.getComponentType(), teleport);
+
+        PluginMetrics.TELEPORTS.increment();
+    }
+
 }
@@ -1,45 +1,58 @@
 package com.fractalgs.services.events;
 
-import com.fractalgs.services.managers.LegsManager;
-import com.fractalgs.utils.ArmorUtils;
-import com.fractalgs.utils.api.WorldHelper;
-import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.protocol.MovementSettings;
-import com.hypixel.hytale.protocol.SavedMovementStates;
-import com.hypixel.hytale.protocol.packets.player.SetMovementStates;
+import com.fractalgs.utils.MovementModifierStack;
+import com.fractalgs.utils.MovementModifierStack.Modifier;
+import com.fractalgs.utils.MovementModifierStack.Operation;
+import com.fractalgs.utils.MovementModifierStack.Property;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.TickExpiryQueue;
+import com.fractalgs.utils.api.WorldShards;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.entity.entities.player.movement.MovementManager;
 
 import javax.annotation.Nonnull;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
+import java.util.*;
 
 public class FlyEvent {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    public static final String ANTI_GRAVITY_TIER_1 = "Old_Gravityinverter";
+    public static final String ANTI_GRAVITY_TIER_2 = "Ancient_Gravityinverter";
 
-    private static final String ANTI_GRAVITY_TIER_1 = "Old_Gravityinverter";
-    private static final String ANTI_GRAVITY_TIER_2 = "Ancient_Gravityinverter";
+    public static final int COOLDOWN_SECONDS = 2;
 
-    private static final Map<UUID, Long> flightExpiryTime = new ConcurrentHashMap<>();
+    private static final String MODIFIER_SOURCE = "fly";
 
-    private static final Set<UUID> activePlayersFlight = ConcurrentHashMap.newKeySet();
+    private static final List<Modifier> FLY_MODIFIERS = List.of(
+            new Modifier(Property.CAN_FLY, Operation.SET, 1.0f),
+            new Modifier(Property.HORIZONTAL_FLY_SPEED, Operation.SET, 15.0f),
+            new Modifier(Property.VERTICAL_FLY_SPEED, Operation.SET, 15.0f)
+    );
+
+    private static final WorldShards<FlightShard> shards = new WorldShards<>(FlightShard::new);
 
     public static void run(@Nonnull Player player, @Nonnull String itemId) {
 
-        long durationMs;
+        PlayerHandle handle = PlayerHandle.of(player);
+
+        if (Objects.nonNull(handle))
+            run(handle, itemId);
+    }
+
+    /**
+     * Starts or extends a flight for {@code handle}. Movement is only changed for a player with an
+     * entity, so stand-ins just hold a flight until it expires or they leave.
+     */
+    public static void run(@Nonnull PlayerHandle handle, @Nonnull String itemId) {
+
+        int durationSeconds;
 
         if (itemId.equals(ANTI_GRAVITY_TIER_1)) {
 
-            durationMs = 30_000L;
+            durationSeconds = 30;
 
         } else if (itemId.equals(ANTI_GRAVITY_TIER_2)) {
 
-            durationMs = 60_000L;
+            durationSeconds = 60;
 
         } else {
 
@@ -47,133 +60,79 @@ public class FlyEvent {
 
         }
 
-        long newExpiryTime = System.currentTimeMillis() + durationMs;
-
-        flightExpiryTime.put(player.getUuid(), newExpiryTime);
+        TickExecutor world = handle.getExecutor();
 
-        applyFly(player);
+        long expiryTick = world.getTick() + (long) durationSeconds * world.getTps();
 
-        if (!activePlayersFlight.contains(player.getUuid())) {
+        FlightShard shard = shards.get(world);
 
-            activePlayersFlight.add(player.getUuid());
-
-            startRealTimeMonitor(player);
-
-        }
-    }
-
-    private static void startRealTimeMonitor(Player player) {
+        if (Objects.isNull(shard))
+            return;
 
-        if (Objects.isNull(player)
-                || !Objects.requireNonNull(player.getReference()).isValid()) {
+        shard.flights.put(handle.getUuid(), handle);
 
-            cleanup(player);
+        Player player = handle.getPlayer();
 
-            return;
-        }
+        if (Objects.nonNull(player))
+            applyFly(player);
 
-        if (Objects.nonNull(player.getWorld())) {
+        shard.expiries.schedule(handle.getUuid(), expiryTick);
+    }
 
-            WorldHelper.waitTicks(player.getWorld(), 10, () ->
-                    checkTime(player));
+    /**
+     * {@link com.fractalgs.services.managers.PlayerLifecycleManager} hook, handed over to the world
+     * the player left.
+     */
+    public static void release(UUID uuid, TickExecutor world) {
 
-        } else {
+        shards.withShard(world, shard -> {
 
-            cleanup(player);
+            shard.expiries.cancel(uuid);
+            shard.flights.remove(uuid);
 
-        }
+        });
     }
 
-    private static void checkTime(Player player) {
+    public static int getActiveFlights() {
+        return shards.values().stream().mapToInt(shard -> shard.flights.size()).sum();
+    }
 
-        if (Objects.isNull(player)
-                || !Objects.requireNonNull(player.getReference()).isValid()) {
+    private static void expire(FlightShard shard, UUID uuid) {
 
-            cleanup(player);
+        PlayerHandle handle = shard.flights.remove(uuid);
 
+        if (Objects.isNull(handle))
             return;
-        }
-
-        long expiry = flightExpiryTime.getOrDefault(player.getUuid(), 0L);
-        long now = System.currentTimeMillis();
 
-        if (now >= expiry) {
+        Player player = handle.getPlayer();
 
+        if (Objects.nonNull(player))
             removeFly(player);
-
-            cleanup(player);
-
-        } else {
-
-            startRealTimeMonitor(player);
-
-        }
-    }
-
-    private static void cleanup(Player player) {
-
-        if (Objects.nonNull(player)) {
-
-            activePlayersFlight.remove(player.getUuid());
-            flightExpiryTime.remove(player.getUuid());
-
-        }
     }
 
     private static void applyFly(Player player) {
 
-        MovementManager movement = ArmorUtils.getMovementManager(player);
-
-        if (Objects.nonNull(movement)) {
-
-            movement.applyDefaultSettings();
-
-            MovementSettings settings = movement.getSettings();
-            settings.canFly = true;
-            settings.horizontalFlySpeed = 15.0f;
-            settings.verticalFlySpeed = 15.0f;
-
-            int legsTier = LegsManager.getEquippedTier(player);
+        MovementModifierStack.set(player, MODIFIER_SOURCE, FLY_MODIFIERS);
 
-            if (legsTier > 0)
-                LegsManager.applyStatsToSettings(settings, legsTier);
-
-            movement.update(player.getPlayerConnection());
-
-            player.getPlayerConnection().write(new SetMovementStates(new SavedMovementStates(true)));
-
-        }
     }
 
     private static void removeFly(Player player) {
 
-        MovementManager movement = ArmorUtils.getMovementManager(player);
-
-        if (Objects.nonNull(movement)) {
-
-            try {
+        MovementModifierStack.clear(player, MODIFIER_SOURCE);
 
-                movement.applyDefaultSettings();
-
-                MovementSettings settings = movement.getSettings();
-                settings.canFly = false;
-                settings.horizontalFlySpeed = 10.32F;
-                settings.verticalFlySpeed = 10.32F;
-
-                int legTier = LegsManager.getEquippedTier(player);
-
-                if (legTier > 0)
-                    LegsManager.applyStatsToSettings(settings, legTier);
-
-                movement.update(player.getPlayerConnection());
+    }
 
-                player.getPlayerConnection().write(new SetMovementStates(new SavedMovementStates(false)));
+    /**
+     * Per-world flights. Only the world's own thread touches {@code flights}; expiries fire there too.
+     */
+    private static class FlightShard {
 
-            } catch (Exception e) {
+        private final Map<UUID, PlayerHandle> flights = new HashMap<>();
 
-                LOGGER.at(Level.WARNING).log(e.getMessage());
+        private final TickExpiryQueue<UUID> expiries;
 
-            }
+        private FlightShard(TickExecutor world) {
+            this.expiries = new TickExpiryQueue<>(world, uuid -> expire(this, uuid));
         }
     }
 }
\ No newline at end of file
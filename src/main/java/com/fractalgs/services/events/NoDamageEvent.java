@@ -4,6 +4,8 @@ import com.fractalgs.services.managers.ChestManager;
 import com.fractalgs.services.managers.HeadManager;
 import com.fractalgs.services.managers.LegsManager;
 import com.fractalgs.utils.ArmorUtils;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Store;
@@ -31,6 +33,12 @@ public class NoDamageEvent extends EntityEventSystem<EntityStore, Damage> {
     private static final String DROWNING = "drowning";
     private static final String POISON = "poison";
 
+    private static final String OWNER = "NoDamageEvent";
+
+    public static final int CANCEL = 1;
+    public static final int THORNS_CHEST = 1 << 1;
+    public static final int THORNS_HEAD = 1 << 2;
+
     public NoDamageEvent() {
         super(Damage.class);
     }
@@ -54,12 +62,28 @@ public class NoDamageEvent extends EntityEventSystem<EntityStore, Damage> {
                        @Nonnull CommandBuffer<EntityStore> commandBuffer,
                        @Nonnull Damage event) {
 
+        long start = TickWatchdog.enter();
+
+        try {
+
+            handleDamage(index, chunk, commandBuffer, event);
+
+        } finally {
+
+            PluginMetrics.DAMAGE_HANDLE.record(TickWatchdog.exit(OWNER, start));
+
+        }
+    }
+
+    private void handleDamage(int index,
+                              @Nonnull ArchetypeChunk<EntityStore> chunk,
+                              @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                              @Nonnull Damage event) {
+
         DamageCause cause = event.getCause();
 
         if (Objects.nonNull(cause)) {
 
-            String causeId = cause.getId().toLowerCase();
-
             Player player = chunk.getComponent(index, Player.getComponentType());
 
             if (Objects.nonNull(player)) {
@@ -68,34 +92,48 @@ public class NoDamageEvent extends EntityEventSystem<EntityStore, Damage> {
                 int headTier = HeadManager.getEquippedTier(player);
                 int legsTier = LegsManager.getEquippedTier(player);
 
-                if (causeId.contains(FALL)
-                        && legsTier >= 2)
-                    event.setCancelled(true);
+                int outcome = resolve(cause.getId(), chestTier, headTier, legsTier);
 
-                if (causeId.contains(FIRE)
-                        && chestTier >= 3)
-                    event.setCancelled(true);
-
-                if (causeId.contains(DROWNING)
-                        && headTier >= 1)
-                    event.setCancelled(true);
-
-                if (causeId.contains(POISON)
-                        && headTier >= 3)
+                if ((outcome & CANCEL) != 0)
                     event.setCancelled(true);
 
                 if (!event.isCancelled()) {
 
-                    if (causeId.contains(PHYSICAL)
-                            && chestTier >= 2)
+                    if ((outcome & THORNS_CHEST) != 0)
                         ArmorUtils.applyThorns(event, player, commandBuffer, chestTier);
 
-                    if (causeId.contains(PROJECTILE)
-                            && headTier >= 2)
+                    if ((outcome & THORNS_HEAD) != 0)
                         ArmorUtils.applyThorns(event, player, commandBuffer, headTier);
 
                 }
             }
         }
     }
+
+    /**
+     * Decides what the equipped armor does against a damage cause, as a combination of
+     * {@link #CANCEL}, {@link #THORNS_CHEST} and {@link #THORNS_HEAD}.
+     */
+    public static int resolve(String causeId, int chestTier, int headTier, int legsTier) {
+
+        String id = causeId.toLowerCase();
+
+        int outcome = 0;
+
+        if ((id.contains(FALL) && legsTier >= 2)
+                || (id.contains(FIRE) && chestTier >= 3)
+                || (id.contains(DROWNING) && headTier >= 1)
+                || (id.contains(POISON) && headTier >= 3))
+            outcome |= CANCEL;
+
+        if (id.contains(PHYSICAL)
+                && chestTier >= 2)
+            outcome |= THORNS_CHEST;
+
+        if (id.contains(PROJECTILE)
+                && headTier >= 2)
+            outcome |= THORNS_HEAD;
+
+        return outcome;
+    }
 }
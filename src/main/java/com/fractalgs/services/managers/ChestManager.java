@@ -1,14 +1,19 @@
 package com.fractalgs.services.managers;
 
-import com.fractalgs.utils.api.WorldHelper;
-import com.hypixel.hytale.component.Holder;
+import com.fractalgs.data.ArmorTiers;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.jfr.ArmorRecomputeEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.protocol.ColorLight;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
-import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
+import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.modules.entity.component.DynamicLight;
@@ -17,76 +22,104 @@ import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import java.util.Objects;
-import java.util.logging.Level;
+import java.util.UUID;
 
 public class ChestManager {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-
     private static final String CHEST_ID_TIER_1 = "Lost_Chest";
     private static final String CHEST_ID_TIER_2 = "Old_Chest";
     private static final String CHEST_ID_TIER_3 = "Ancient_Chest";
 
+    private final LightBudgetManager lightBudget = new LightBudgetManager(this::applyLighting, this::removeLighting);
+
     public void register(JavaPlugin plugin) {
 
-        plugin.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, event -> {
+        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, TickWatchdog.guard("ChestManager", (LivingEntityInventoryChangeEvent event) -> {
 
-            Holder<EntityStore> holder = event.getHolder();
+            if (event.getEntity() instanceof Player player) {
 
-            Player player = holder.getComponent(Player.getComponentType());
+                if (!Objects.equals(event.getItemContainer(), player.getInventory().getArmor()))
+                    return;
 
-            if (Objects.nonNull(player))
-                WorldHelper.waitTicks(event.getWorld(), 10, () ->
-                        checkPlayer(player));
-        });
+                PlayerHandle handle = PlayerHandle.of(player);
 
-        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, event -> {
+                if (Objects.nonNull(handle))
+                    PlayerTasks.waitTicks(handle.getUuid(), handle.getExecutor(), 1, () -> onArmorChanged(handle));
+            }
+        }));
+    }
 
-            if (event.getEntity() instanceof Player player) {
+    /**
+     * {@link PlayerJoinManager} stage.
+     */
+    public void onJoin(PlayerHandle handle, ArmorTiers tiers) {
+        applyTier(handle, tiers.chest());
+    }
+
+    /**
+     * Tracks or drops the player's light for the chest piece they wear now.
+     */
+    public void onArmorChanged(PlayerHandle handle) {
+
+        if (handle.isValid())
+            applyTier(handle, getEquippedTier(handle.getInventory()));
 
-                if (Objects.equals(event.getItemContainer(), player.getInventory().getArmor()))
-                    WorldHelper.waitTicks(event.getEntity().getWorld(), 1, () ->
-                            checkPlayer(player));
-            }
-        });
     }
 
-    private void checkPlayer(Player player) {
+    /**
+     * {@link PlayerLifecycleManager} hook.
+     */
+    public void onLeave(UUID uuid, TickExecutor world) {
+        lightBudget.forget(uuid, world);
+    }
 
-        try {
+    public int getPlayerEntries() {
+        return lightBudget.getPlayerEntries();
+    }
+
+    private void applyTier(PlayerHandle handle, int tier) {
+
+        long start = System.nanoTime();
 
-            int tier = getEquippedTier(player);
+        ArmorRecomputeEvent jfr = new ArmorRecomputeEvent();
+
+        jfr.begin();
+
+        try {
 
             if (tier >= 1) {
 
-                applyLighting(player);
+                lightBudget.track(handle);
 
             } else {
 
-                removeLighting(player);
+                lightBudget.untrack(handle);
 
             }
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("ChestManager.applyTier", e);
+
+        } finally {
+
+            PluginMetrics.CHEST_LISTENER.record(System.nanoTime() - start);
+
+            ArmorRecomputeEvent.commit(jfr, "chest", tier);
 
         }
     }
 
-    private void applyLighting(Player player) {
+    private void applyLighting(PlayerHandle handle, ColorLight targetColor) {
 
         try {
 
-            if (Objects.isNull(player.getWorld()))
+            if (Objects.isNull(handle.getWorld()))
                 return;
 
-            Store<EntityStore> store = player.getWorld().getEntityStore().getStore();
-            Ref<EntityStore> ref = player.getReference();
+            Store<EntityStore> store = handle.getWorld().getEntityStore().getStore();
+            Ref<EntityStore> ref = handle.getRef();
 
-            ColorLight targetColor = getColorLight(true);
-
-            assert ref != null;
             PersistentDynamicLight currentLightComp = (store.getComponent(ref, PersistentDynamicLight.getComponentType()));
 
             ColorLight currentColor = Objects.nonNull(currentLightComp)
@@ -117,22 +150,21 @@ public class ChestManager {
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("ChestManager.applyLighting", e);
 
         }
     }
 
-    private void removeLighting(Player player) {
+    private void removeLighting(PlayerHandle handle) {
 
         try {
 
-            if (Objects.isNull(player.getWorld()))
+            if (Objects.isNull(handle.getWorld()))
                 return;
 
-            Store<EntityStore> store = player.getWorld().getEntityStore().getStore();
-            Ref<EntityStore> ref = player.getReference();
+            Store<EntityStore> store = handle.getWorld().getEntityStore().getStore();
+            Ref<EntityStore> ref = handle.getRef();
 
-            assert ref != null;
             if (Objects.nonNull(store.getComponent(ref, PersistentDynamicLight.getComponentType())))
                 store.removeComponent(ref, PersistentDynamicLight.getComponentType());
 
@@ -141,71 +173,57 @@ public class ChestManager {
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("ChestManager.removeLighting", e);
 
         }
     }
 
-    private static ColorLight getColorLight(boolean isWearing) {
-
-        ColorLight targetColor;
+    public static int getEquippedTier(Player player) {
+        return getEquippedTier(player.getInventory());
+    }
 
-        if (isWearing) {
+    private static int getEquippedTier(Inventory inventory) {
 
-            byte radius = 10;
+        try {
 
-            byte red = 0;
-            byte green = 15;
-            byte blue = 15;
+            if (Objects.isNull(inventory))
+                return 0;
 
-            targetColor = new ColorLight(radius, red, green, blue);
+            return getEquippedTier(inventory.getArmor());
 
-        } else {
+        } catch (Exception e) {
 
-            targetColor = new ColorLight((byte) 0, (byte) 0, (byte) 0, (byte) 0);
+            return 0;
 
         }
-
-        return targetColor;
     }
 
-    public static int getEquippedTier(Player player) {
-
-        try {
-
-            if (Objects.isNull(player.getInventory())
-                    || Objects.isNull(player.getInventory().getArmor()))
-                return 0;
+    public static int getEquippedTier(ItemContainer armor) {
 
-            ItemContainer armor = player.getInventory().getArmor();
+        if (Objects.isNull(armor))
+            return 0;
 
-            for (int i = 0; i < armor.getCapacity(); i++) {
+        for (int i = 0; i < armor.getCapacity(); i++) {
 
-                ItemStack stack = armor.getItemStack((short) i);
+            ItemStack stack = armor.getItemStack((short) i);
 
-                if (Objects.nonNull(stack)) {
+            if (Objects.nonNull(stack)) {
 
-                    String id = stack.getItemId();
+                String id = stack.getItemId();
 
-                    switch (id) {
-                        case CHEST_ID_TIER_3 -> {
-                            return 3;
-                        }
-                        case CHEST_ID_TIER_2 -> {
-                            return 2;
-                        }
-                        case CHEST_ID_TIER_1 -> {
-                            return 1;
-                        }
+                switch (id) {
+                    case CHEST_ID_TIER_3 -> {
+                        return 3;
+                    }
+                    case CHEST_ID_TIER_2 -> {
+                        return 2;
+                    }
+                    case CHEST_ID_TIER_1 -> {
+                        return 1;
                     }
-
                 }
-            }
-
-        } catch (Exception e) {
-
-            return 0;
 
+            }
         }
 
         return 0;
@@ -1,58 +1,78 @@
 package com.fractalgs.services.managers;
 
+import com.fractalgs.data.ArmorTiers;
+import com.fractalgs.data.RecipeIndex;
 import com.fractalgs.data.SmeltProgress;
-import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.data.ThermalRecipe;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.jfr.ArmorRecomputeEvent;
+import com.fractalgs.utils.jfr.RepairTickEvent;
+import com.fractalgs.utils.jfr.SmeltConversionEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.assetstore.AssetRegistry;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
 import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
-import com.hypixel.hytale.component.Holder;
-import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.protocol.BenchRequirement;
-import com.hypixel.hytale.protocol.ItemResourceType;
 import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
-import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
-import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 public class HandsManager {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-
     private static final String HANDS_ID_TIER_1 = "Lost_Hands";
     private static final String HANDS_ID_TIER_2 = "Old_Hands";
     private static final String HANDS_ID_TIER_3 = "Ancient_Hands";
 
     private static final Integer SMELT_TIME_TICKS = 140;
 
-    private record ThermalRecipe(String outputId, Integer inputQty, Integer outputQty, boolean isCampfire) {}
+    /**
+     * Recipe batches at least this large are converted on the common pool rather than on the index
+     * thread alone.
+     */
+    private static final int PARALLEL_BATCH = 256;
+
+    private static final VarHandle RESOURCE_TYPE_ID = findStringField("resourceTypeId");
+    private static final VarHandle TAG = findStringField("tag");
+
+    private final RecipeIndex recipeIndex;
 
-    private final Map<String, ThermalRecipe> recipeIds = new HashMap<>();
-    private final Map<Integer, ThermalRecipe> recipeTags = new HashMap<>();
-    private final Map<String, Integer> recipeResourceNames = new HashMap<>();
+    private final ExecutorService recipeIndexExecutor = Executors.newSingleThreadExecutor(r -> {
 
-    private final Map<UUID, SmeltProgress> playerProgress = new ConcurrentHashMap<>();
-    private final Map<UUID, Boolean> activeSmeltLoops = new ConcurrentHashMap<>();
-    private final Map<UUID, Boolean> activeRepairLoops = new ConcurrentHashMap<>();
+        Thread thread = new Thread(r, "HandsManager-RecipeIndex");
 
-    private final Map<UUID, Integer> repairAccumulator = new ConcurrentHashMap<>();
+        thread.setDaemon(true);
 
-    private boolean recipesScanned = false;
+        return thread;
+    });
+
+    private final WorldShards<HandsShard> shards = new WorldShards<>(world -> new HandsShard());
 
     private static final String[] REPAIR_BLACKLIST = {
             "Lost_Head", "Lost_Chest", "Lost_Legs", "Lost_Hands",
@@ -60,152 +80,278 @@ public class HandsManager {
             "Ancient_Head", "Ancient_Chest", "Ancient_Legs", "Ancient_Hands",
     };
 
+    public HandsManager() {
+        this(new RecipeIndex());
+    }
+
+    /**
+     * Uses {@code recipeIndex} as is; {@link #register} also keeps it in step with the assets.
+     */
+    public HandsManager(RecipeIndex recipeIndex) {
+        this.recipeIndex = recipeIndex;
+    }
+
     public void register(JavaPlugin plugin) {
 
-        plugin.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, event -> {
+        PluginMetrics.gauge("hands.smelt.loops", () -> shards.values().stream().mapToLong(shard -> shard.activeSmeltLoops.size()).sum());
+        PluginMetrics.gauge("hands.repair.loops", () -> shards.values().stream().mapToLong(shard -> shard.activeRepairLoops.size()).sum());
 
-            Holder<EntityStore> holder = event.getHolder();
+        plugin.getEventRegistry().register(LoadedAssetsEvent.class, CraftingRecipe.class, event -> {
 
-            Player player = holder.getComponent(Player.getComponentType());
+            Map<String, CraftingRecipe> loaded = new HashMap<>(event.getLoadedAssets());
 
-            if (Objects.nonNull(player)) {
+            recipeIndexExecutor.execute(() -> updateRecipes(loaded, Set.of()));
+        });
 
-                if (!recipesScanned) {
+        plugin.getEventRegistry().register(RemovedAssetsEvent.class, CraftingRecipe.class, event -> {
 
-                    scanRecipes();
+            Set<String> removed = new HashSet<>(event.getRemovedAssets());
 
-                    recipesScanned = true;
-                }
+            recipeIndexExecutor.execute(() -> updateRecipes(Map.of(), removed));
+        });
+
+        recipeIndexExecutor.execute(this::scanRecipes);
+
+        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, TickWatchdog.guard("HandsManager", (LivingEntityInventoryChangeEvent event) -> {
+
+            if (event.getEntity() instanceof Player player) {
+
+                PlayerHandle handle = PlayerHandle.of(player);
+
+                if (Objects.nonNull(handle))
+                    onArmorChanged(handle);
 
-                startLoopSafe(player);
             }
-        });
+        }));
+    }
 
-        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, event -> {
+    /**
+     * Stops the recipe index thread; queued asset updates are dropped with it.
+     */
+    public void shutdown() {
 
-            if (event.getEntity() instanceof Player player)
-                startLoopSafe(player);
+        recipeIndexExecutor.shutdownNow();
+
+    }
+
+    /**
+     * {@link PlayerJoinManager} stage.
+     */
+    public void onJoin(PlayerHandle handle, ArmorTiers tiers) {
+        startLoopSafe(handle, tiers.hands());
+    }
+
+    /**
+     * Starts the loops the player's gloves call for, if they aren't running yet.
+     */
+    public void onArmorChanged(PlayerHandle handle) {
+        startLoopSafe(handle, getEquippedTier(handle.getInventory()));
+    }
+
+    /**
+     * {@link PlayerLifecycleManager} hook, handed over to the world the player left. The loops'
+     * pending ticks are already cancelled by then.
+     */
+    public void onLeave(UUID uuid, TickExecutor world) {
+
+        shards.withShard(world, shard -> {
+
+            shard.activeSmeltLoops.remove(uuid);
+            shard.activeRepairLoops.remove(uuid);
+
+            shard.playerProgress.remove(uuid);
+            shard.repairAccumulator.remove(uuid);
 
         });
     }
 
-    private void startLoopSafe(Player player) {
+    /**
+     * Returns how many per-player entries the shards hold; zero once every player has left.
+     */
+    public int getPlayerEntries() {
 
-        int tier = getEquippedTier(player);
+        return shards.values().stream()
+                .mapToInt(shard -> shard.activeSmeltLoops.size() + shard.activeRepairLoops.size()
+                        + shard.playerProgress.size() + shard.repairAccumulator.size())
+                .sum();
+    }
 
-        if (tier >= 1
-                && !activeSmeltLoops.getOrDefault(player.getUuid(), false)) {
+    private void startLoopSafe(PlayerHandle handle, int tier) {
+
+        long start = System.nanoTime();
+
+        ArmorRecomputeEvent jfr = new ArmorRecomputeEvent();
+
+        jfr.begin();
+
+        try {
+
+            startLoops(handle, tier);
+
+        } finally {
 
-            activeSmeltLoops.put(player.getUuid(), true);
+            PluginMetrics.HANDS_LISTENER.record(System.nanoTime() - start);
 
-            smeltingLoop(player);
+            ArmorRecomputeEvent.commit(jfr, "hands", tier);
 
         }
+    }
 
-        if (tier >= 3
-                && !activeRepairLoops.getOrDefault(player.getUuid(), false)) {
+    private void startLoops(PlayerHandle handle, int tier) {
+
+        HandsShard shard = shards.get(handle.getExecutor());
+
+        if (Objects.isNull(shard))
+            return;
 
-            activeRepairLoops.put(player.getUuid(), true);
+        if (tier >= 1
+                && shard.activeSmeltLoops.add(handle.getUuid())) {
 
-            repairLoop(player);
+            smeltingLoop(handle);
+
+        }
+
+        if (tier >= 3
+                && shard.activeRepairLoops.add(handle.getUuid())) {
+
+            repairLoop(handle);
 
         }
     }
 
-    private void smeltingLoop(Player player) {
+    private void smeltingLoop(PlayerHandle handle) {
+
+        HandsShard shard = shards.find(handle.getExecutor());
+
+        if (Objects.isNull(shard))
+            return;
 
         try {
 
-            if (Objects.isNull(player.getWorld())
-                    || !player.getWorld().isAlive()) {
+            Inventory inventory = handle.getInventory();
+
+            if (Objects.isNull(inventory)) {
 
-                activeSmeltLoops.remove(player.getUuid());
+                shard.activeSmeltLoops.remove(handle.getUuid());
+                shard.playerProgress.remove(handle.getUuid());
 
                 return;
             }
 
-            int tier = getEquippedTier(player);
+            int tier = getEquippedTier(inventory);
 
             if (tier >= 1) {
 
-                processSmeltingTick(player, tier);
+                long start = System.nanoTime();
 
-                WorldHelper.waitTicks(player.getWorld(), 5, () -> smeltingLoop(player));
+                processSmeltingTick(shard, handle, inventory, tier);
+
+                PluginMetrics.SMELT_TICK.record(System.nanoTime() - start);
+
+                PlayerTasks.waitTicks(handle.getUuid(), handle.getExecutor(), 5, () -> smeltingLoop(handle));
 
             } else {
 
-                activeSmeltLoops.remove(player.getUuid());
-                playerProgress.remove(player.getUuid());
+                shard.activeSmeltLoops.remove(handle.getUuid());
+                shard.playerProgress.remove(handle.getUuid());
 
             }
 
         } catch (Exception e) {
 
-            activeSmeltLoops.remove(player.getUuid());
+            shard.activeSmeltLoops.remove(handle.getUuid());
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("HandsManager.smeltingLoop", e);
 
         }
     }
 
-    private void repairLoop(Player player) {
+    private void repairLoop(PlayerHandle handle) {
+
+        HandsShard shard = shards.find(handle.getExecutor());
+
+        if (Objects.isNull(shard))
+            return;
 
         try {
 
-            if (Objects.isNull(player.getWorld())
-                    || !player.getWorld().isAlive()) {
+            Inventory inventory = handle.getInventory();
+
+            if (Objects.isNull(inventory)) {
 
-                activeRepairLoops.remove(player.getUuid());
-                repairAccumulator.remove(player.getUuid());
+                shard.activeRepairLoops.remove(handle.getUuid());
+                shard.repairAccumulator.remove(handle.getUuid());
 
                 return;
             }
 
-            if (getEquippedTier(player) >= 3) {
+            if (getEquippedTier(inventory) >= 3) {
+
+                long start = System.nanoTime();
+
+                RepairTickEvent jfr = new RepairTickEvent();
+
+                jfr.begin();
+
+                boolean repaired = repairItemInHand(handle, inventory);
+
+                PluginMetrics.REPAIR_TICK.record(System.nanoTime() - start);
+
+                if (jfr.shouldCommit()) {
+
+                    ItemStack held = inventory.getItemInHand();
 
-                boolean repaired = repairItemInHand(player);
+                    jfr.item = Objects.nonNull(held)
+                            ? held.getItemId()
+                            : null;
+                    jfr.repaired = repaired;
+
+                    jfr.commit();
+                }
 
                 if (repaired) {
 
-                    int accumulated = repairAccumulator.getOrDefault(player.getUuid(), 0) + 1;
+                    PluginMetrics.REPAIRS.increment();
+
+                    int accumulated = shard.repairAccumulator.getOrDefault(handle.getUuid(), 0) + 1;
 
                     if (accumulated >= 25) {
 
-                        damageGloves(player);
+                        damageGloves(handle, inventory);
 
                         accumulated = 0;
 
                     }
 
-                    repairAccumulator.put(player.getUuid(), accumulated);
+                    shard.repairAccumulator.put(handle.getUuid(), accumulated);
                 }
 
-                WorldHelper.waitTicks(player.getWorld(), 100, () -> repairLoop(player));
+                PlayerTasks.waitTicks(handle.getUuid(), handle.getExecutor(), 100, () -> repairLoop(handle));
 
             } else {
 
-                activeRepairLoops.remove(player.getUuid());
-                repairAccumulator.remove(player.getUuid());
+                shard.activeRepairLoops.remove(handle.getUuid());
+                shard.repairAccumulator.remove(handle.getUuid());
 
             }
 
         } catch (Exception e) {
 
-            activeRepairLoops.remove(player.getUuid());
+            shard.activeRepairLoops.remove(handle.getUuid());
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("HandsManager.repairLoop", e);
 
         }
     }
 
-    private void processSmeltingTick(Player player, int tier) {
+    private void processSmeltingTick(HandsShard shard, PlayerHandle handle, Inventory inventory, int tier) {
 
-        ItemStack heldItem = player.getInventory().getItemInHand();
+        ItemStack heldItem = inventory.getItemInHand();
 
         if (Objects.isNull(heldItem)
                 || heldItem.isEmpty()) {
 
-            playerProgress.remove(player.getUuid());
+            shard.playerProgress.remove(handle.getUuid());
 
             return;
         }
@@ -219,12 +365,12 @@ public class HandsManager {
             if (tier == 1
                     && !recipe.isCampfire()) {
 
-                playerProgress.remove(player.getUuid());
+                shard.playerProgress.remove(handle.getUuid());
 
                 return;
             }
 
-            SmeltProgress progress = playerProgress.computeIfAbsent(player.getUuid(), k ->
+            SmeltProgress progress = shard.playerProgress.computeIfAbsent(handle.getUuid(), k ->
                     new SmeltProgress());
 
             if (!inputId.equals(progress.getId())) {
@@ -238,12 +384,28 @@ public class HandsManager {
 
             if (progress.getProgressTicks() >= SMELT_TIME_TICKS) {
 
-                boolean success = smeltOneItem(player, heldItem, recipe);
+                SmeltConversionEvent jfr = new SmeltConversionEvent();
+
+                jfr.begin();
+
+                boolean success = smeltOneItem(handle, inventory, heldItem, recipe);
+
+                if (jfr.shouldCommit()) {
+
+                    jfr.input = inputId;
+                    jfr.output = recipe.outputId();
+                    jfr.tier = tier;
+                    jfr.succeeded = success;
+
+                    jfr.commit();
+                }
 
                 if (success) {
 
                     progress.setProgressTicks(0);
 
+                    PluginMetrics.SMELT_CONVERSIONS.increment();
+
                 } else {
 
                     progress.setProgressTicks(SMELT_TIME_TICKS);
@@ -253,30 +415,30 @@ public class HandsManager {
 
         } else {
 
-            playerProgress.remove(player.getUuid());
+            shard.playerProgress.remove(handle.getUuid());
 
         }
     }
 
-    private boolean smeltOneItem(Player player, ItemStack heldItem, ThermalRecipe recipe) {
+    private boolean smeltOneItem(PlayerHandle handle, Inventory inventory, ItemStack heldItem, ThermalRecipe recipe) {
 
-        if (heldItem.getQuantity() < recipe.inputQty)
+        if (heldItem.getQuantity() < recipe.inputQty())
             return false;
 
         int currentQty = heldItem.getQuantity();
-        int remainingQty = currentQty - recipe.inputQty;
+        int remainingQty = currentQty - recipe.inputQty();
 
-        ItemStack product = new ItemStack(recipe.outputId, recipe.outputQty);
+        ItemStack product = new ItemStack(recipe.outputId(), recipe.outputQty());
 
-        ItemContainer inv = player.getInventory().getCombinedHotbarFirst();
+        ItemContainer inv = inventory.getCombinedHotbarFirst();
 
-        int slot = player.getInventory().getActiveHotbarSlot();
+        int slot = inventory.getActiveHotbarSlot();
 
         if (Objects.equals(remainingQty, 0)) {
 
-            player.getInventory().getHotbar().replaceItemStackInSlot((short) slot, heldItem, product);
+            inventory.getHotbar().replaceItemStackInSlot((short) slot, heldItem, product);
 
-            player.sendInventory();
+            handle.sendInventory();
 
             return true;
         }
@@ -285,11 +447,11 @@ public class HandsManager {
 
             ItemStack reducedStack = new ItemStack(heldItem.getItemId(), remainingQty, heldItem.getMetadata());
 
-            player.getInventory().getHotbar().replaceItemStackInSlot((short) slot, heldItem, reducedStack);
+            inventory.getHotbar().replaceItemStackInSlot((short) slot, heldItem, reducedStack);
 
             inv.addItemStack(product);
 
-            player.sendInventory();
+            handle.sendInventory();
 
             return true;
 
@@ -302,127 +464,159 @@ public class HandsManager {
 
     private ThermalRecipe findRecipe(String inputId) {
 
-        if (recipeIds.containsKey(inputId))
-            return recipeIds.get(inputId);
+        RecipeIndex index = this.recipeIndex;
+
+        ThermalRecipe byId = index.byItemId(inputId);
+
+        if (Objects.nonNull(byId))
+            return byId;
 
         Item itemAsset = Item.getAssetMap().getAsset(inputId);
 
-        if (Objects.nonNull(itemAsset)) {
+        if (Objects.isNull(itemAsset))
+            return null;
 
-            ItemResourceType[] resTypes = itemAsset.getResourceTypes();
+        IntSet itemTags = Objects.nonNull(itemAsset.getData())
+                ? itemAsset.getData().getExpandedTagIndexes()
+                : null;
 
-            if (Objects.nonNull(resTypes)) {
+        return index.byResourceTypesOrTags(itemAsset.getResourceTypes(), itemTags);
+    }
 
-                for (ItemResourceType res : resTypes) {
+    /**
+     * Picks up recipes loaded before {@link #register} subscribed to asset loads. Queued at setup,
+     * right after subscribing, so the index is built before the first player needs it and no load
+     * falls between the two.
+     */
+    private void scanRecipes() {
 
-                    if (Objects.nonNull(res.id)
-                            && recipeResourceNames.containsKey(res.id))
-                        return recipeTags.get(recipeResourceNames.get(res.id));
+        long start = System.nanoTime();
 
-                }
-            }
+        try {
 
-            if (Objects.nonNull(itemAsset.getData())) {
+            DefaultAssetMap<String, CraftingRecipe> assetMap = CraftingRecipe.getAssetMap();
 
-                IntSet itemTags = itemAsset.getData().getExpandedTagIndexes();
+            if (Objects.isNull(assetMap))
+                return;
 
-                IntIterator it = itemTags.iterator();
+            updateRecipes(new HashMap<>(assetMap.getAssetMap()), Set.of());
 
-                while (it.hasNext()) {
+        } catch (Exception e) {
 
-                    int tId = it.nextInt();
+            ErrorSink.report("HandsManager.scanRecipes", e);
 
-                    if (recipeTags.containsKey(tId))
-                        return recipeTags.get(tId);
-                }
-            }
-        }
+        } finally {
+
+            PluginMetrics.RECIPE_SCAN.record(System.nanoTime() - start);
 
-        return null;
+        }
     }
 
-    private void scanRecipes() {
+    /**
+     * Re-derives only the changed recipes and applies them to the index. Always called on
+     * {@link #recipeIndexExecutor}, so updates are applied in event order.
+     */
+    private void updateRecipes(Map<String, CraftingRecipe> loaded, Set<String> removed) {
 
         try {
-            DefaultAssetMap<String, CraftingRecipe> assetMap = CraftingRecipe.getAssetMap();
 
-            if (Objects.isNull(assetMap))
-                return;
+            List<Map.Entry<String, CraftingRecipe>> assets = new ArrayList<>(loaded.entrySet());
 
-            for (CraftingRecipe recipe : assetMap.getAssetMap().values()) {
+            RecipeIndex.Entry[] entries = new RecipeIndex.Entry[assets.size()];
 
-                if (Objects.isNull(recipe.getInput())
-                        || recipe.getInput().length != 1)
-                    continue;
+            IntStream indexes = IntStream.range(0, entries.length);
 
-                if (Objects.isNull(recipe.getPrimaryOutput()))
-                    continue;
+            if (entries.length >= PARALLEL_BATCH)
+                indexes = indexes.parallel();
 
-                if (!isThermalBench(recipe))
-                    continue;
+            indexes.forEach(i -> entries[i] = toIndexEntry(assets.get(i).getValue()));
 
-                boolean isCampfire = isCampfireRecipe(recipe);
+            Map<String, RecipeIndex.Entry> upserted = new HashMap<>();
 
-                MaterialQuantity inputMQ = recipe.getInput()[0];
-                MaterialQuantity outputMQ = recipe.getPrimaryOutput();
+            for (int i = 0; i < entries.length; i++)
+                upserted.put(assets.get(i).getKey(), entries[i]);
 
-                String outId = outputMQ.getItemId();
+            recipeIndex.apply(upserted, removed);
 
-                if (Objects.isNull(outId))
-                    continue;
+        } catch (Exception e) {
 
-                ThermalRecipe thermalData = new ThermalRecipe(outId, inputMQ.getQuantity(), outputMQ.getQuantity(), isCampfire);
+            ErrorSink.report("HandsManager.updateRecipes", e);
 
-                String inId = inputMQ.getItemId();
+        }
+    }
 
-                if (Objects.nonNull(inId)) {
+    private RecipeIndex.Entry toIndexEntry(CraftingRecipe recipe) {
 
-                    recipeIds.put(inId, thermalData);
+        if (Objects.isNull(recipe)
+                || Objects.isNull(recipe.getInput())
+                || recipe.getInput().length != 1)
+            return null;
 
-                } else {
+        if (Objects.isNull(recipe.getPrimaryOutput()))
+            return null;
 
-                    String tagString = getField(inputMQ, "resourceTypeId");
+        if (!isThermalBench(recipe))
+            return null;
 
-                    if (Objects.isNull(tagString)
-                            || tagString.equals("null"))
-                        tagString = getField(inputMQ, "tag");
+        boolean isCampfire = isCampfireRecipe(recipe);
 
-                    if (Objects.nonNull(tagString)
-                            && !tagString.equals("null")) {
+        MaterialQuantity inputMQ = recipe.getInput()[0];
+        MaterialQuantity outputMQ = recipe.getPrimaryOutput();
 
-                        int tagId = AssetRegistry.getOrCreateTagIndex(tagString);
+        String outId = outputMQ.getItemId();
 
-                        recipeTags.put(tagId, thermalData);
-                        recipeResourceNames.put(tagString, tagId);
+        if (Objects.isNull(outId))
+            return null;
 
-                    }
-                }
-            }
+        ThermalRecipe thermalData = new ThermalRecipe(outId, inputMQ.getQuantity(), outputMQ.getQuantity(), isCampfire);
 
-        } catch (Exception e) {
+        String inId = inputMQ.getItemId();
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+        if (Objects.nonNull(inId))
+            return new RecipeIndex.Entry(inId, null, 0, thermalData);
 
-        }
-    }
+        String tagString = getField(RESOURCE_TYPE_ID, inputMQ);
 
-    private String getField(Object obj, String fieldName) {
+        if (Objects.isNull(tagString)
+                || tagString.equals("null"))
+            tagString = getField(TAG, inputMQ);
 
-        try {
+        if (Objects.isNull(tagString)
+                || tagString.equals("null"))
+            return null;
+
+        int tagId = AssetRegistry.getOrCreateTagIndex(tagString);
 
-            Field f = obj.getClass().getDeclaredField(fieldName);
+        return new RecipeIndex.Entry(null, tagString, tagId, thermalData);
+    }
 
-            f.setAccessible(true);
+    /**
+     * {@link MaterialQuantity} keeps its tag inputs in private fields; the handles are looked up
+     * once instead of reflecting on every recipe. {@code null} if the field doesn't exist.
+     */
+    private static VarHandle findStringField(String fieldName) {
+
+        try {
 
-            return (String) f.get(obj);
+            return MethodHandles.privateLookupIn(MaterialQuantity.class, MethodHandles.lookup())
+                    .findVarHandle(MaterialQuantity.class, fieldName, String.class);
 
         } catch (Exception e) {
 
+            ErrorSink.report("HandsManager.findStringField", e);
+
             return null;
 
         }
     }
 
+    private static String getField(VarHandle field, MaterialQuantity quantity) {
+
+        return Objects.nonNull(field)
+                ? (String) field.get(quantity)
+                : null;
+    }
+
     private boolean isThermalBench(CraftingRecipe recipe) {
 
         BenchRequirement[] reqs = recipe.getBenchRequirement();
@@ -483,9 +677,7 @@ public class HandsManager {
         return false;
     }
 
-    private boolean repairItemInHand(Player player) {
-
-        Inventory inventory = player.getInventory();
+    private boolean repairItemInHand(PlayerHandle handle, Inventory inventory) {
 
         byte activeSlot = inventory.getActiveHotbarSlot();
 
@@ -510,7 +702,7 @@ public class HandsManager {
 
             hotbar.replaceItemStackInSlot(activeSlot, currentItem, currentItem.withIncreasedDurability(1.0));
 
-            player.sendInventory();
+            handle.sendInventory();
 
             return true;
         }
@@ -518,9 +710,9 @@ public class HandsManager {
         return false;
     }
 
-    private void damageGloves(Player player) {
+    private void damageGloves(PlayerHandle handle, Inventory inventory) {
 
-        ItemContainer armor = player.getInventory().getArmor();
+        ItemContainer armor = inventory.getArmor();
 
         for (int i = 0; i < armor.getCapacity(); i++) {
 
@@ -538,7 +730,7 @@ public class HandsManager {
 
                     armor.replaceItemStackInSlot((short) i, stack, damaged);
 
-                    player.sendInventory();
+                    handle.sendInventory();
 
                     return;
                 }
@@ -547,45 +739,64 @@ public class HandsManager {
         }
     }
 
-    private int getEquippedTier(Player player) {
+    private static int getEquippedTier(Inventory inventory) {
 
         try {
 
-            if (Objects.isNull(player.getInventory())
-                    || Objects.isNull(player.getInventory().getArmor()))
+            if (Objects.isNull(inventory))
                 return 0;
 
-            ItemContainer armor = player.getInventory().getArmor();
+            return getEquippedTier(inventory.getArmor());
 
-            for (int i = 0; i < armor.getCapacity(); i++) {
+        } catch (Exception e) {
 
-                ItemStack stack = armor.getItemStack((short) i);
+            return 0;
 
-                if (Objects.nonNull(stack)) {
+        }
+    }
 
-                    String id = stack.getItemId();
+    public static int getEquippedTier(ItemContainer armor) {
 
-                    switch (id) {
-                        case HANDS_ID_TIER_3 -> {
-                            return 3;
-                        }
-                        case HANDS_ID_TIER_2 -> {
-                            return 2;
-                        }
-                        case HANDS_ID_TIER_1 -> {
-                            return 1;
-                        }
-                    }
+        if (Objects.isNull(armor))
+            return 0;
 
-                }
-            }
+        for (int i = 0; i < armor.getCapacity(); i++) {
 
-        } catch (Exception e) {
+            ItemStack stack = armor.getItemStack((short) i);
 
-            return 0;
+            if (Objects.nonNull(stack)) {
+
+                String id = stack.getItemId();
+
+                switch (id) {
+                    case HANDS_ID_TIER_3 -> {
+                        return 3;
+                    }
+                    case HANDS_ID_TIER_2 -> {
+                        return 2;
+                    }
+                    case HANDS_ID_TIER_1 -> {
+                        return 1;
+                    }
+                }
 
+            }
         }
 
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-world Hands state. Only the world's own thread touches it.
+     */
+    private static class HandsShard {
+
+        private final Map<UUID, SmeltProgress> playerProgress = new HashMap<>();
+
+        private final Set<UUID> activeSmeltLoops = new HashSet<>();
+        private final Set<UUID> activeRepairLoops = new HashSet<>();
+
+        private final Map<UUID, Integer> repairAccumulator = new HashMap<>();
+
+    }
+}
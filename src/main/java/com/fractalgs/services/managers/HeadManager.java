@@ -1,11 +1,24 @@
 package com.fractalgs.services.managers;
 
+import com.fractalgs.data.ArmorTiers;
+import com.fractalgs.services.managers.OreGenerationManager.OrePosition;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.jfr.ArmorRecomputeEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 
-import java.util.Objects;
+import java.util.*;
 
 public class HeadManager {
 
@@ -13,47 +26,193 @@ public class HeadManager {
     private static final String HEAD_ID_TIER_2 = "Old_Head";
     private static final String HEAD_ID_TIER_3 = "Ancient_Head";
 
-    public void register(JavaPlugin plugin) {}
+    private static final int SCAN_INTERVAL_TICKS = 40;
 
-    public static int getEquippedTier(Player player) {
+    private static final int OLD_SCAN_RADIUS = 16;
+    private static final int ANCIENT_SCAN_RADIUS = 32;
+
+    private final WorldShards<HeadShard> shards = new WorldShards<>(world -> new HeadShard());
+
+    public void register(JavaPlugin plugin) {
+
+        PluginMetrics.gauge("head.scan.loops", () -> shards.values().stream().mapToLong(shard -> shard.scanners.size()).sum());
+
+        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, TickWatchdog.guard("HeadManager", (LivingEntityInventoryChangeEvent event) -> {
+
+            if (event.getEntity() instanceof Player player) {
+
+                PlayerHandle handle = PlayerHandle.of(player);
+
+                if (Objects.nonNull(handle)
+                        && Objects.equals(event.getItemContainer(), player.getInventory().getArmor()))
+                    startScanner(handle, getEquippedTier(player));
+
+            }
+        }));
+    }
+
+    /**
+     * {@link PlayerJoinManager} stage.
+     */
+    public void onJoin(PlayerHandle handle, ArmorTiers tiers) {
+        startScanner(handle, tiers.head());
+    }
+
+    /**
+     * {@link PlayerLifecycleManager} hook. The scanner's pending tick is already cancelled by then.
+     */
+    public void onLeave(UUID uuid, TickExecutor world) {
+        shards.withShard(world, shard -> shard.scanners.remove(uuid));
+    }
+
+    private void startScanner(PlayerHandle handle, int tier) {
+
+        ArmorRecomputeEvent jfr = new ArmorRecomputeEvent();
+
+        jfr.begin();
 
         try {
 
-            if (Objects.isNull(player.getInventory())
-                    || Objects.isNull(player.getInventory().getArmor()))
-                return 0;
+            if (tier < 2)
+                return;
+
+            HeadShard shard = shards.get(handle.getExecutor());
 
-            ItemContainer armor = player.getInventory().getArmor();
+            if (Objects.nonNull(shard)
+                    && !shard.scanners.containsKey(handle.getUuid())) {
 
-            for (int i = 0; i < armor.getCapacity(); i++) {
+                shard.scanners.put(handle.getUuid(), Optional.empty());
 
-                ItemStack stack = armor.getItemStack((short) i);
+                scanLoop(handle);
+            }
 
-                if (Objects.nonNull(stack)) {
+        } finally {
 
-                    String id = stack.getItemId();
+            ArmorRecomputeEvent.commit(jfr, "head", tier);
 
-                    switch (id) {
-                        case HEAD_ID_TIER_3 -> {
-                            return 3;
-                        }
-                        case HEAD_ID_TIER_2 -> {
-                            return 2;
-                        }
-                        case HEAD_ID_TIER_1 -> {
-                            return 1;
-                        }
-                    }
+        }
+    }
 
-                }
+    /**
+     * Ore sense of the Old and Ancient heads: every couple of seconds the nearest indexed Lost ore is
+     * looked up, and the wearer is told whenever it changes.
+     */
+    private void scanLoop(PlayerHandle handle) {
+
+        HeadShard shard = shards.find(handle.getExecutor());
+
+        if (Objects.isNull(shard))
+            return;
+
+        try {
+
+            Player player = handle.getPlayer();
+
+            int tier = Objects.nonNull(player)
+                    ? getEquippedTier(player)
+                    : 0;
+
+            if (tier < 2) {
+
+                shard.scanners.remove(handle.getUuid());
+
+                return;
+            }
+
+            Vector3d position = handle.getPosition();
+
+            if (Objects.nonNull(position)) {
+
+                int x = (int) Math.floor(position.x);
+                int y = (int) Math.floor(position.y);
+                int z = (int) Math.floor(position.z);
+
+                List<OrePosition> nearest = OreGenerationManager.findNearest(handle.getWorld(), x, y, z,
+                        tier >= 3 ? ANCIENT_SCAN_RADIUS : OLD_SCAN_RADIUS, 1);
+
+                Optional<OrePosition> found = nearest.stream().findFirst();
+
+                if (!found.equals(shard.scanners.put(handle.getUuid(), found)))
+                    found.ifPresent(ore -> player.sendMessage(Message.raw(String.format(
+                            "Lost ore sensed %d blocks away (%+d, %+d, %+d)",
+                            Math.round(Math.sqrt(distanceSquared(x, y, z, ore))),
+                            ore.x() - x, ore.y() - y, ore.z() - z))));
             }
 
+            PlayerTasks.waitTicks(handle.getUuid(), handle.getExecutor(), SCAN_INTERVAL_TICKS, () -> scanLoop(handle));
+
+        } catch (Exception e) {
+
+            shard.scanners.remove(handle.getUuid());
+
+            ErrorSink.report("HeadManager.scanLoop", e);
+
+        }
+    }
+
+    private static long distanceSquared(int x, int y, int z, OrePosition ore) {
+
+        long dx = ore.x() - x;
+        long dy = ore.y() - y;
+        long dz = ore.z() - z;
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public static int getEquippedTier(Player player) {
+
+        try {
+
+            if (Objects.isNull(player.getInventory()))
+                return 0;
+
+            return getEquippedTier(player.getInventory().getArmor());
+
         } catch (Exception e) {
 
             return 0;
 
         }
+    }
+
+    public static int getEquippedTier(ItemContainer armor) {
+
+        if (Objects.isNull(armor))
+            return 0;
+
+        for (int i = 0; i < armor.getCapacity(); i++) {
+
+            ItemStack stack = armor.getItemStack((short) i);
+
+            if (Objects.nonNull(stack)) {
+
+                String id = stack.getItemId();
+
+                switch (id) {
+                    case HEAD_ID_TIER_3 -> {
+                        return 3;
+                    }
+                    case HEAD_ID_TIER_2 -> {
+                        return 2;
+                    }
+                    case HEAD_ID_TIER_1 -> {
+                        return 1;
+                    }
+                }
+
+            }
+        }
 
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Scanning wearers of one world and the ore each was last told about. Only the world's own
+     * thread touches it.
+     */
+    private static class HeadShard {
+
+        private final Map<UUID, Optional<OrePosition>> scanners = new HashMap<>();
+
+    }
+}
@@ -0,0 +1,229 @@
+package com.fractalgs.services.managers;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.api.ScheduledTask;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Item-to-handler table behind {@link InteractionsManager}.
+ * <p>
+ * Gadgets register their item ids once at setup. The table {@link InteractionsManager} reads is
+ * rebuilt only when item assets load or unload, and holds only ids that exist as assets, so a use
+ * is a single lookup on the held item id whatever the number of gadgets.
+ * <p>
+ * Every item has a per-player cooldown. Gadgets registered as jobs keep running after the
+ * interaction returns, and each world only runs {@link #MAX_JOBS_PER_WORLD} of them at once; uses
+ * over either limit are rejected before the handler runs. A job's slot is released by its
+ * {@code done} callback, or reclaimed and reported after {@link #JOB_TIMEOUT_SECONDS}.
+ */
+public class InteractionHandlers {
+
+    private static final int MAX_JOBS_PER_WORLD = 4;
+
+    /**
+     * A job that hasn't called {@code done} after this long is assumed lost and its slot is
+     * reclaimed, so one buggy gadget can't lock a world out of jobs for good.
+     */
+    private static final int JOB_TIMEOUT_SECONDS = 60;
+
+    @FunctionalInterface
+    public interface Handler {
+        void run(@Nonnull Player player, @Nonnull String itemId);
+    }
+
+    /**
+     * A handler whose work outlives the interaction. {@code done} must be called once the work
+     * ends, however it ends, and may be called from any thread; calls after the first are ignored.
+     */
+    @FunctionalInterface
+    public interface JobHandler {
+        void run(@Nonnull Player player, @Nonnull String itemId, @Nonnull Runnable done);
+    }
+
+    private record Registration(JobHandler handler, int cooldownSeconds, boolean job) {}
+
+    private static final Map<String, Registration> registered = new ConcurrentHashMap<>();
+
+    private static volatile Map<String, Registration> resolved = Map.of();
+
+    private static final WorldShards<GadgetShard> shards = new WorldShards<>(world -> new GadgetShard());
+
+    public static void register(Handler handler, int cooldownSeconds, String... itemIds) {
+
+        JobHandler wrapped = (player, itemId, done) -> handler.run(player, itemId);
+
+        for (String itemId : itemIds)
+            registered.put(itemId, new Registration(wrapped, cooldownSeconds, false));
+
+    }
+
+    public static void registerJob(JobHandler handler, int cooldownSeconds, String... itemIds) {
+
+        for (String itemId : itemIds)
+            registered.put(itemId, new Registration(handler, cooldownSeconds, true));
+
+    }
+
+    public static void register(JavaPlugin plugin) {
+
+        plugin.getEventRegistry().register(LoadedAssetsEvent.class, Item.class, event -> resolve());
+
+        plugin.getEventRegistry().register(RemovedAssetsEvent.class, Item.class, event -> resolve());
+
+    }
+
+    /**
+     * Runs the handler for {@code itemId}, if any. Called on the player's world thread. Returns
+     * {@code false} if the use was rejected by a cooldown or the job cap.
+     */
+    public static boolean dispatch(Player player, String itemId) {
+
+        Registration registration = resolved.get(itemId);
+
+        if (Objects.isNull(registration))
+            return true;
+
+        PlayerHandle handle = PlayerHandle.of(player);
+
+        if (Objects.isNull(handle))
+            return false;
+
+        World world = handle.getWorld();
+
+        GadgetShard shard = shards.get(world);
+
+        if (Objects.isNull(shard))
+            return false;
+
+        Map<String, Long> cooldowns = shard.cooldowns.computeIfAbsent(handle.getUuid(), k -> new HashMap<>());
+
+        long tick = world.getTick();
+
+        Long readyTick = cooldowns.get(itemId);
+
+        if (Objects.nonNull(readyTick)
+                && tick < readyTick) {
+
+            PluginMetrics.GADGET_COOLDOWN.increment();
+
+            return false;
+        }
+
+        if (registration.job()
+                && shard.jobs.get() >= MAX_JOBS_PER_WORLD) {
+
+            PluginMetrics.GADGET_REJECTED.increment();
+
+            return false;
+        }
+
+        cooldowns.put(itemId, tick + (long) registration.cooldownSeconds() * world.getTps());
+
+        Runnable done = () -> {};
+
+        if (registration.job()) {
+
+            shard.jobs.incrementAndGet();
+
+            AtomicBoolean finished = new AtomicBoolean(false);
+
+            AtomicReference<ScheduledTask> timeout = new AtomicReference<>();
+
+            done = () -> {
+
+                if (!finished.compareAndSet(false, true))
+                    return;
+
+                shard.jobs.decrementAndGet();
+
+                ScheduledTask pendingTimeout = timeout.get();
+
+                if (Objects.nonNull(pendingTimeout))
+                    pendingTimeout.cancel();
+            };
+
+            timeout.set(WorldHelper.waitTicks(world, JOB_TIMEOUT_SECONDS * world.getTps(), () -> {
+
+                if (finished.compareAndSet(false, true)) {
+
+                    shard.jobs.decrementAndGet();
+
+                    ErrorSink.report("InteractionHandlers.job", new IllegalStateException(itemId + " job never called done"));
+
+                }
+            }));
+        }
+
+        try {
+
+            registration.handler().run(player, itemId, done);
+
+        } catch (Exception e) {
+
+            done.run();
+
+            ErrorSink.report("InteractionHandlers.dispatch", e);
+
+        }
+
+        return true;
+    }
+
+    /**
+     * {@link PlayerLifecycleManager} hook.
+     */
+    public static void release(UUID uuid, TickExecutor world) {
+        shards.withShard(world, shard -> shard.cooldowns.remove(uuid));
+    }
+
+    private static synchronized void resolve() {
+
+        try {
+
+            Map<String, Registration> next = new HashMap<>();
+
+            for (Map.Entry<String, Registration> entry : registered.entrySet())
+                if (Objects.nonNull(Item.getAssetMap().getAsset(entry.getKey())))
+                    next.put(entry.getKey(), entry.getValue());
+
+            resolved = Map.copyOf(next);
+
+        } catch (Exception e) {
+
+            ErrorSink.report("InteractionHandlers.resolve", e);
+
+        }
+    }
+
+    /**
+     * Cooldowns and running jobs of one world. Cooldowns are only touched on its thread; the job
+     * count is also released by {@code done}, which may run anywhere.
+     */
+    private static class GadgetShard {
+
+        private final Map<UUID, Map<String, Long>> cooldowns = new HashMap<>();
+
+        private final AtomicInteger jobs = new AtomicInteger();
+
+    }
+}
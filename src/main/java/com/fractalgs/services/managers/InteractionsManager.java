@@ -1,7 +1,5 @@
 package com.fractalgs.services.managers;
 
-import com.fractalgs.services.events.EscapeButtonEvent;
-import com.fractalgs.services.events.FlyEvent;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Ref;
@@ -47,9 +45,11 @@ public class InteractionsManager extends SimpleInstantInteraction {
 
         ItemStack held = interactionContext.getHeldItem();
 
-        assert held != null;
-        EscapeButtonEvent.run(player, held.getItemId());
-        FlyEvent.run(player, held.getItemId());
+        if (Objects.isNull(held))
+            return;
+
+        if (!InteractionHandlers.dispatch(player, held.getItemId()))
+            interactionContext.getState().state = InteractionState.Failed;
     }
 
 }
@@ -0,0 +1,443 @@
+package com.fractalgs.services.managers;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.SafeLandingSearch;
+import com.fractalgs.utils.api.SafeLandingSearch.Landing;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a sampled grid of safe landing heights for every loaded chunk, so random escape
+ * destinations can be picked without scanning the world at press time.
+ * <p>
+ * Each chunk stores one landing y per sampled column. Entries are built when the chunk loads and
+ * marked stale when a block in a sampled column changes; a stale entry is rescanned the next time
+ * it is picked.
+ * <p>
+ * Chunks are bucketed by region of {@code 2^REGION_SHIFT} chunks a side, so a pick only draws from
+ * buckets that overlap its radius. There is no chunk-unload event to hook, so a background pass on
+ * the world thread walks the index a batch at a time and evicts chunks that are no longer loaded;
+ * picks also evict the unloaded chunks they land on.
+ */
+public class LandingIndexManager {
+
+    private static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int SAMPLE_STEP = 8;
+    private static final int SAMPLE_OFFSET = SAMPLE_STEP / 2;
+    private static final int SAMPLES_PER_AXIS = CHUNK_SIZE / SAMPLE_STEP;
+
+    private static final short NO_LANDING = -1;
+    private static final short STALE = -2;
+
+    private static final int PICK_ATTEMPTS = 32;
+
+    private static final int REGION_SHIFT = 4;
+
+    private static final int EVICT_INTERVAL_TICKS = 20;
+    private static final int EVICT_BATCH = 256;
+
+    private static final WorldShards<WorldIndex> indexes = new WorldShards<>(world -> new WorldIndex(world.getWorld()));
+
+    public void register(JavaPlugin plugin) {
+
+        plugin.getEventRegistry().registerGlobal(ChunkPreLoadProcessEvent.class, TickWatchdog.guard("LandingIndexManager", (ChunkPreLoadProcessEvent event) -> {
+
+            long start = System.nanoTime();
+
+            try {
+
+                WorldChunk chunk = event.getChunk();
+
+                if (Objects.isNull(chunk.getWorld()))
+                    return;
+
+                WorldIndex index = indexes.get(chunk.getWorld());
+
+                if (Objects.isNull(index))
+                    return;
+
+                index.put(ChunkUtil.indexChunk(chunk.getX(), chunk.getZ()), sampleChunk(chunk));
+
+                if (index.evicting.compareAndSet(false, true))
+                    WorldHelper.waitTicks(index.world, EVICT_INTERVAL_TICKS, () -> evictLoop(index));
+
+            } catch (Exception e) {
+
+                ErrorSink.report("LandingIndexManager.register", e);
+
+            } finally {
+
+                PluginMetrics.LANDING_INDEX_LISTENER.record(System.nanoTime() - start);
+
+            }
+        }));
+    }
+
+    /**
+     * Picks a random indexed landing within {@code radius} blocks of the base position whose height
+     * lies in the same window the column search uses. Must be called on the world thread. Returns
+     * {@code null} if no indexed landing qualifies after a few draws.
+     */
+    public static Landing pick(World world, int baseX, int baseY, int baseZ, int radius) {
+
+        WorldIndex index = indexes.find(world);
+
+        if (Objects.isNull(index))
+            return null;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < PICK_ATTEMPTS; i++) {
+
+            // Alternate between an indexed chunk near the base and a random chunk inside the radius,
+            // so both sparse and crowded indexes yield a hit within a few draws.
+            Long chunkIndex;
+
+            if (i % 2 == 0) {
+
+                chunkIndex = index.randomChunk(random, baseX, baseZ, radius);
+
+                if (Objects.isNull(chunkIndex))
+                    return null;
+
+            } else {
+
+                chunkIndex = ChunkUtil.indexChunkFromBlock(
+                        baseX + random.nextInt(-radius, radius + 1),
+                        baseZ + random.nextInt(-radius, radius + 1));
+
+            }
+
+            int sample = random.nextInt(SAMPLES_PER_AXIS * SAMPLES_PER_AXIS);
+
+            int x = (ChunkUtil.xOfChunkIndex(chunkIndex) * CHUNK_SIZE) + SAMPLE_OFFSET + (sample % SAMPLES_PER_AXIS) * SAMPLE_STEP;
+            int z = (ChunkUtil.zOfChunkIndex(chunkIndex) * CHUNK_SIZE) + SAMPLE_OFFSET + (sample / SAMPLES_PER_AXIS) * SAMPLE_STEP;
+
+            if (Math.abs(x - baseX) > radius
+                    || Math.abs(z - baseZ) > radius)
+                continue;
+
+            int y = index.get(chunkIndex, sample);
+
+            if (y == STALE) {
+
+                WorldChunk chunk = world.getChunkIfLoaded(chunkIndex);
+
+                if (Objects.isNull(chunk)) {
+
+                    index.remove(chunkIndex);
+
+                    continue;
+                }
+
+                y = sampleColumn(chunk, x & CHUNK_MASK, z & CHUNK_MASK);
+
+                index.set(chunkIndex, sample, (short) y);
+            }
+
+            if (y == NO_LANDING
+                    || y > baseY + 64
+                    || y < baseY - 128)
+                continue;
+
+            if (Objects.isNull(world.getChunkIfLoaded(chunkIndex))) {
+
+                index.remove(chunkIndex);
+
+                continue;
+            }
+
+            return new Landing(x, y, z);
+        }
+
+        return null;
+    }
+
+    /**
+     * Marks the indexed landing of the column containing the block as stale, if that column is
+     * sampled at all.
+     */
+    public static void invalidate(World world, int x, int z) {
+
+        if (Objects.isNull(world)
+                || (x & CHUNK_MASK) % SAMPLE_STEP != SAMPLE_OFFSET
+                || (z & CHUNK_MASK) % SAMPLE_STEP != SAMPLE_OFFSET)
+            return;
+
+        WorldIndex index = indexes.find(world);
+
+        if (Objects.isNull(index))
+            return;
+
+        int sample = ((z & CHUNK_MASK) / SAMPLE_STEP) * SAMPLES_PER_AXIS + (x & CHUNK_MASK) / SAMPLE_STEP;
+
+        index.set(ChunkUtil.indexChunkFromBlock(x, z), sample, STALE);
+    }
+
+    /**
+     * Checks the next batch of indexed chunks and drops those that are no longer loaded. Runs on
+     * the world thread until the index is empty; the next chunk load starts it again.
+     */
+    private static void evictLoop(WorldIndex index) {
+
+        try {
+
+            if (!index.world.isAlive()) {
+
+                index.evicting.set(false);
+
+                return;
+            }
+
+            for (Long chunkIndex : index.nextBatch(EVICT_BATCH))
+                if (Objects.isNull(index.world.getChunkIfLoaded(chunkIndex)))
+                    index.remove(chunkIndex);
+
+        } catch (Exception e) {
+
+            ErrorSink.report("LandingIndexManager.evictLoop", e);
+
+        }
+
+        if (index.isEmpty()) {
+
+            index.evicting.set(false);
+
+            // A load may have slipped in after the emptiness check; it must not be left unswept.
+            if (index.isEmpty()
+                    || !index.evicting.compareAndSet(false, true))
+                return;
+        }
+
+        WorldHelper.waitTicks(index.world, EVICT_INTERVAL_TICKS, () -> evictLoop(index));
+    }
+
+    private static short[] sampleChunk(WorldChunk chunk) {
+
+        short[] samples = new short[SAMPLES_PER_AXIS * SAMPLES_PER_AXIS];
+
+        for (int sz = 0; sz < SAMPLES_PER_AXIS; sz++) {
+
+            for (int sx = 0; sx < SAMPLES_PER_AXIS; sx++)
+                samples[sz * SAMPLES_PER_AXIS + sx] = sampleColumn(chunk,
+                        SAMPLE_OFFSET + sx * SAMPLE_STEP, SAMPLE_OFFSET + sz * SAMPLE_STEP);
+
+        }
+
+        return samples;
+    }
+
+    private static short sampleColumn(WorldChunk chunk, int localX, int localZ) {
+
+        Integer y = SafeLandingSearch.findSafeCoordY(chunk, localX, localZ, SafeLandingSearch.MAX_Y, SafeLandingSearch.MIN_Y);
+
+        return Objects.nonNull(y)
+                ? y.shortValue()
+                : NO_LANDING;
+    }
+
+    private static long getRegionKey(int regionX, int regionZ) {
+
+        return (long) regionX & 0xFFFFFFFFL | ((long) regionZ & 0xFFFFFFFFL) << 32;
+
+    }
+
+    /**
+     * Keys with constant-time add, remove and uniform random draw; removal swaps the last key into
+     * the freed slot.
+     */
+    private static class KeyList {
+
+        private final List<Long> keys = new ArrayList<>();
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        private void add(long key) {
+
+            positions.put(key, keys.size());
+
+            keys.add(key);
+        }
+
+        private void remove(long key) {
+
+            Integer position = positions.remove(key);
+
+            if (Objects.isNull(position))
+                return;
+
+            Long last = keys.remove(keys.size() - 1);
+
+            if (position < keys.size()) {
+
+                keys.set(position, last);
+
+                positions.put(last, position);
+
+            }
+        }
+
+        private int size() {
+            return keys.size();
+        }
+
+        private Long get(int position) {
+            return keys.get(position);
+        }
+    }
+
+    /**
+     * Indexed chunks of one world, listed once overall for the eviction pass and once in their
+     * region's bucket for picks. Chunk loads arrive off the world thread, so the index keeps its
+     * own lock, but that lock is only ever shared within one world.
+     */
+    private static class WorldIndex {
+
+        private final World world;
+
+        private final Map<Long, short[]> samples = new HashMap<>();
+
+        private final KeyList all = new KeyList();
+        private final Map<Long, KeyList> regions = new HashMap<>();
+
+        private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+        private int evictCursor = 0;
+
+        private WorldIndex(World world) {
+            this.world = world;
+        }
+
+        private static long regionOf(long chunkIndex) {
+
+            return getRegionKey(ChunkUtil.xOfChunkIndex(chunkIndex) >> REGION_SHIFT,
+                    ChunkUtil.zOfChunkIndex(chunkIndex) >> REGION_SHIFT);
+        }
+
+        private synchronized void put(long chunkIndex, short[] chunkSamples) {
+
+            if (Objects.isNull(samples.put(chunkIndex, chunkSamples))) {
+
+                all.add(chunkIndex);
+
+                regions.computeIfAbsent(regionOf(chunkIndex), k -> new KeyList()).add(chunkIndex);
+
+            }
+        }
+
+        private synchronized void remove(long chunkIndex) {
+
+            if (Objects.isNull(samples.remove(chunkIndex)))
+                return;
+
+            all.remove(chunkIndex);
+
+            long regionKey = regionOf(chunkIndex);
+
+            KeyList region = regions.get(regionKey);
+
+            region.remove(chunkIndex);
+
+            if (region.size() == 0)
+                regions.remove(regionKey);
+        }
+
+        private synchronized boolean isEmpty() {
+            return samples.isEmpty();
+        }
+
+        /**
+         * Returns the next {@code max} keys for the eviction pass, wrapping around. Keys moved by
+         * removals may be checked twice or skipped for one round, which only delays their eviction.
+         */
+        private synchronized List<Long> nextBatch(int max) {
+
+            List<Long> batch = new ArrayList<>(Math.min(max, all.size()));
+
+            for (int i = 0; i < max && i < all.size(); i++) {
+
+                if (evictCursor >= all.size())
+                    evictCursor = 0;
+
+                batch.add(all.get(evictCursor++));
+            }
+
+            return batch;
+        }
+
+        /**
+         * Draws a chunk uniformly from the buckets overlapping the square of {@code radius} blocks
+         * around the base, or returns {@code null} if none holds any.
+         */
+        private synchronized Long randomChunk(ThreadLocalRandom random, int baseX, int baseZ, int radius) {
+
+            int minRegionX = Math.floorDiv(baseX - radius, CHUNK_SIZE) >> REGION_SHIFT;
+            int maxRegionX = Math.floorDiv(baseX + radius, CHUNK_SIZE) >> REGION_SHIFT;
+            int minRegionZ = Math.floorDiv(baseZ - radius, CHUNK_SIZE) >> REGION_SHIFT;
+            int maxRegionZ = Math.floorDiv(baseZ + radius, CHUNK_SIZE) >> REGION_SHIFT;
+
+            List<KeyList> candidates = new ArrayList<>();
+
+            int total = 0;
+
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+
+                for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+
+                    KeyList region = regions.get(getRegionKey(regionX, regionZ));
+
+                    if (Objects.isNull(region))
+                        continue;
+
+                    candidates.add(region);
+
+                    total += region.size();
+                }
+            }
+
+            if (total == 0)
+                return null;
+
+            int draw = random.nextInt(total);
+
+            for (KeyList region : candidates) {
+
+                if (draw < region.size())
+                    return region.get(draw);
+
+                draw -= region.size();
+            }
+
+            return null;
+        }
+
+        private synchronized short get(long chunkIndex, int sample) {
+
+            short[] chunkSamples = samples.get(chunkIndex);
+
+            return Objects.nonNull(chunkSamples)
+                    ? chunkSamples[sample]
+                    : NO_LANDING;
+        }
+
+        private synchronized void set(long chunkIndex, int sample, short y) {
+
+            short[] chunkSamples = samples.get(chunkIndex);
+
+            if (Objects.nonNull(chunkSamples))
+                chunkSamples[sample] = y;
+        }
+    }
+}
@@ -1,26 +1,27 @@
 package com.fractalgs.services.managers;
 
-import com.fractalgs.utils.ArmorUtils;
-import com.fractalgs.utils.api.WorldHelper;
-import com.hypixel.hytale.component.Holder;
-import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.protocol.MovementSettings;
+import com.fractalgs.data.ArmorTiers;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.MovementModifierStack;
+import com.fractalgs.utils.MovementModifierStack.Modifier;
+import com.fractalgs.utils.MovementModifierStack.Operation;
+import com.fractalgs.utils.MovementModifierStack.Property;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.jfr.ArmorRecomputeEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.entity.entities.player.movement.MovementManager;
 import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
-import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
-import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.logging.Level;
 
 public class LegsManager {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-
     private static final String LEGS_ID_TIER_1 = "Lost_Legs";
     private static final String LEGS_ID_TIER_2 = "Old_Legs";
     private static final String LEGS_ID_TIER_3 = "Ancient_Legs";
@@ -28,32 +29,43 @@ public class LegsManager {
     private static final float SPEED_MULTIPLIER = 2.0f;
     private static final float JUMP_MULTIPLIER = 1.5f;
 
+    private static final String MODIFIER_SOURCE = "legs";
+
     public void register(JavaPlugin plugin) {
 
-        plugin.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, event -> {
+        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, TickWatchdog.guard("LegsManager", (LivingEntityInventoryChangeEvent event) -> {
 
-            Holder<EntityStore> holder = event.getHolder();
+            if (event.getEntity() instanceof Player player)
+                if (Objects.equals(event.getItemContainer(), player.getInventory().getArmor()))
+                    checkPlayer(player);
+        }));
+    }
 
-            Player player = holder.getComponent(Player.getComponentType());
+    /**
+     * {@link PlayerJoinManager} stage.
+     */
+    public void onJoin(PlayerHandle handle, ArmorTiers tiers) {
 
-            if (Objects.nonNull(player))
-                WorldHelper.waitTicks(event.getWorld(), 10, () ->
-                        checkPlayer(player));
-        });
+        Player player = handle.getPlayer();
 
-        plugin.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, event -> {
+        if (Objects.nonNull(player))
+            applyTier(player, tiers.legs());
 
-            if (event.getEntity() instanceof Player player)
-                if (Objects.equals(event.getItemContainer(), player.getInventory().getArmor()))
-                    checkPlayer(player);
-        });
     }
 
     private void checkPlayer(Player player) {
+        applyTier(player, getEquippedTier(player));
+    }
 
-        try {
+    private void applyTier(Player player, int tier) {
 
-            int tier = getEquippedTier(player);
+        long start = System.nanoTime();
+
+        ArmorRecomputeEvent jfr = new ArmorRecomputeEvent();
+
+        jfr.begin();
+
+        try {
 
             if (tier >= 1) {
 
@@ -67,87 +79,88 @@ public class LegsManager {
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("LegsManager.applyTier", e);
 
-        }
-    }
+        } finally {
 
-    private void applyPhysics(Player player, int tier) {
+            PluginMetrics.LEGS_LISTENER.record(System.nanoTime() - start);
 
-        MovementManager movement = ArmorUtils.getMovementManager(player);
+            ArmorRecomputeEvent.commit(jfr, "legs", tier);
 
-        if (Objects.nonNull(movement)) {
+        }
+    }
 
-            movement.applyDefaultSettings();
+    private void applyPhysics(Player player, int tier) {
 
-            applyStatsToSettings(movement.getSettings(), tier);
+        MovementModifierStack.set(player, MODIFIER_SOURCE, getModifiers(tier));
 
-            movement.update(player.getPlayerConnection());
-        }
     }
 
-    public static void applyStatsToSettings(MovementSettings settings, int tier) {
+    private static List<Modifier> getModifiers(int tier) {
+
+        List<Modifier> modifiers = new ArrayList<>();
 
         if (tier >= 1) {
 
-            settings.maxSpeedMultiplier *= SPEED_MULTIPLIER;
-            settings.forwardSprintSpeedMultiplier *= SPEED_MULTIPLIER;
+            modifiers.add(new Modifier(Property.MAX_SPEED, Operation.MULTIPLY, SPEED_MULTIPLIER));
+            modifiers.add(new Modifier(Property.FORWARD_SPRINT_SPEED, Operation.MULTIPLY, SPEED_MULTIPLIER));
 
         }
 
         if (tier >= 3)
-            settings.jumpForce *= JUMP_MULTIPLIER;
+            modifiers.add(new Modifier(Property.JUMP_FORCE, Operation.MULTIPLY, JUMP_MULTIPLIER));
+
+        return modifiers;
     }
 
     private void resetPhysics(Player player) {
 
-        MovementManager movement = ArmorUtils.getMovementManager(player);
-
-        if (Objects.nonNull(movement)) {
+        MovementModifierStack.clear(player, MODIFIER_SOURCE);
 
-            movement.applyDefaultSettings();
-
-            movement.update(player.getPlayerConnection());
-        }
     }
 
     public static int getEquippedTier(Player player) {
 
         try {
 
-            if (Objects.isNull(player.getInventory())
-                    || Objects.isNull(player.getInventory().getArmor()))
+            if (Objects.isNull(player.getInventory()))
                 return 0;
 
-            ItemContainer armor = player.getInventory().getArmor();
+            return getEquippedTier(player.getInventory().getArmor());
 
-            for (int i = 0; i < armor.getCapacity(); i++) {
+        } catch (Exception e) {
 
-                ItemStack stack = armor.getItemStack((short) i);
+            return 0;
 
-                if (Objects.nonNull(stack)) {
+        }
+    }
 
-                    String id = stack.getItemId();
+    public static int getEquippedTier(ItemContainer armor) {
 
-                    switch (id) {
-                        case LEGS_ID_TIER_3 -> {
-                            return 3;
-                        }
-                        case LEGS_ID_TIER_2 -> {
-                            return 2;
-                        }
-                        case LEGS_ID_TIER_1 -> {
-                            return 1;
-                        }
-                    }
+        if (Objects.isNull(armor))
+            return 0;
 
-                }
-            }
+        for (int i = 0; i < armor.getCapacity(); i++) {
 
-        } catch (Exception e) {
+            ItemStack stack = armor.getItemStack((short) i);
 
-            return 0;
+            if (Objects.nonNull(stack)) {
+
+                String id = stack.getItemId();
 
+                switch (id) {
+                    case LEGS_ID_TIER_3 -> {
+                        return 3;
+                    }
+                    case LEGS_ID_TIER_2 -> {
+                        return 2;
+                    }
+                    case LEGS_ID_TIER_1 -> {
+                        return 1;
+                    }
+                }
+
+            }
         }
 
         return 0;
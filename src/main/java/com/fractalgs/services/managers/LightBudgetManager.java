@@ -0,0 +1,365 @@
+package com.fractalgs.services.managers;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.api.WorldShards;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.protocol.ColorLight;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Caps how many Chest-tier player lights are active per region of a world.
+ * <p>
+ * Wearers are grouped into clusters of players standing within {@link #CLUSTER_RADIUS} blocks of
+ * a leader, and only the leader carries a light, its radius shrinking as the cluster gets more
+ * crowded. On top of that at most {@link #MAX_LIGHTS_PER_REGION} leaders are lit per square
+ * region. Components are only touched when a player's effective light actually changes.
+ * <p>
+ * Tracking changes only mark the world dirty; a periodic loop on the world thread does the sweep,
+ * so a burst of armor changes costs one sweep instead of one each. The sweep makes every light
+ * write, including clearing the light of a player who stopped wearing the armor, so nothing else
+ * touches a wearer's light components between sweeps.
+ */
+public class LightBudgetManager {
+
+    private static final int REGION_SHIFT = 5;
+
+    private static final int MAX_LIGHTS_PER_REGION = 4;
+
+    /**
+     * Wearers this close to a leader, in blocks on each axis, share its light.
+     */
+    private static final int CLUSTER_RADIUS = 8;
+
+    private static final int SWEEP_INTERVAL_TICKS = 20;
+
+    /**
+     * How often the loop checks for tracking changes between full sweeps.
+     */
+    private static final int DIRTY_CHECK_TICKS = 4;
+
+    private static final byte RED = 0;
+    private static final byte GREEN = 15;
+    private static final byte BLUE = 15;
+
+    /**
+     * Shared light per density level, from a lone wearer to a crowded region. These instances are
+     * handed to every component and must never be mutated.
+     */
+    private static final ColorLight[] RADIUS_LEVELS = {
+            new ColorLight((byte) 10, RED, GREEN, BLUE),
+            new ColorLight((byte) 8, RED, GREEN, BLUE),
+            new ColorLight((byte) 6, RED, GREEN, BLUE),
+            new ColorLight((byte) 4, RED, GREEN, BLUE)
+    };
+
+    private final WorldShards<LightShard> shards = new WorldShards<>(world -> new LightShard());
+
+    private final BiConsumer<PlayerHandle, ColorLight> applyLight;
+    private final Consumer<PlayerHandle> removeLight;
+
+    public LightBudgetManager(BiConsumer<PlayerHandle, ColorLight> applyLight, Consumer<PlayerHandle> removeLight) {
+
+        this.applyLight = applyLight;
+        this.removeLight = removeLight;
+
+    }
+
+    public void track(PlayerHandle handle) {
+
+        TickExecutor world = handle.getExecutor();
+
+        LightShard shard = shards.get(world);
+
+        if (Objects.isNull(shard))
+            return;
+
+        shard.unlit.remove(handle.getUuid());
+        shard.wearers.put(handle.getUuid(), handle);
+
+        markDirty(world, shard);
+    }
+
+    /**
+     * Stops lighting the player; the next sweep clears their light, including one left over from
+     * an earlier session.
+     */
+    public void untrack(PlayerHandle handle) {
+
+        TickExecutor world = handle.getExecutor();
+
+        LightShard shard = shards.get(world);
+
+        if (Objects.isNull(shard))
+            return;
+
+        shard.wearers.remove(handle.getUuid());
+        shard.unlit.put(handle.getUuid(), handle);
+
+        markDirty(world, shard);
+    }
+
+    private void markDirty(TickExecutor world, LightShard shard) {
+
+        shard.dirty = true;
+
+        if (!shard.sweeping) {
+
+            shard.sweeping = true;
+
+            WorldHelper.waitTicks(world, 1, () -> sweepLoop(world, shard));
+
+        }
+    }
+
+    /**
+     * Drops a player who left without touching their components, which may already be gone. Runs
+     * on the thread of the world they left.
+     */
+    public void forget(UUID uuid, TickExecutor world) {
+
+        shards.withShard(world, shard -> {
+
+            shard.wearers.remove(uuid);
+            shard.unlit.remove(uuid);
+            shard.appliedLights.remove(uuid);
+
+        });
+    }
+
+    /**
+     * Returns how many per-player entries the shards hold; zero once every wearer has left.
+     */
+    public int getPlayerEntries() {
+        return shards.values().stream().mapToInt(shard -> shard.wearers.size() + shard.unlit.size() + shard.appliedLights.size()).sum();
+    }
+
+    private void sweepLoop(TickExecutor world, LightShard shard) {
+
+        try {
+
+            if (!world.isAlive()) {
+
+                shard.sweeping = false;
+
+                return;
+            }
+
+            long now = world.getTick();
+
+            if (shard.dirty
+                    || now - shard.lastSweepTick >= SWEEP_INTERVAL_TICKS) {
+
+                shard.dirty = false;
+                shard.lastSweepTick = now;
+
+                if (!sweep(shard)) {
+
+                    shard.sweeping = false;
+
+                    return;
+                }
+            }
+
+            WorldHelper.waitTicks(world, DIRTY_CHECK_TICKS, () -> sweepLoop(world, shard));
+
+        } catch (Exception e) {
+
+            shard.sweeping = false;
+
+            ErrorSink.report("LightBudgetManager.sweepLoop", e);
+
+        }
+    }
+
+    /**
+     * Clears the lights of untracked players, then recomputes the budget for every wearer in the
+     * shard's world. Returns {@code false} once the world has no wearers left, so the caller can
+     * stop sweeping it.
+     */
+    private boolean sweep(LightShard shard) {
+
+        for (PlayerHandle handle : shard.unlit.values()) {
+
+            shard.appliedLights.remove(handle.getUuid());
+
+            if (handle.isValid())
+                removeLight.accept(handle);
+        }
+
+        shard.unlit.clear();
+
+        List<Wearer> wearers = new ArrayList<>();
+
+        Iterator<PlayerHandle> it = shard.wearers.values().iterator();
+
+        while (it.hasNext()) {
+
+            PlayerHandle handle = it.next();
+
+            if (!handle.isValid()) {
+
+                it.remove();
+                shard.appliedLights.remove(handle.getUuid());
+
+                continue;
+            }
+
+            Vector3d position = handle.getPosition();
+
+            if (Objects.isNull(position))
+                continue;
+
+            wearers.add(new Wearer(handle, (int) Math.floor(position.x), (int) Math.floor(position.z)));
+        }
+
+        for (Cluster cluster : cluster(shard, wearers))
+            for (int i = 0; i < cluster.members.size(); i++)
+                setLight(shard, cluster.members.get(i).handle(), i == 0 ? cluster.light : null);
+
+        return !wearers.isEmpty();
+    }
+
+    /**
+     * Greedy clustering over a grid of {@link #CLUSTER_RADIUS}-sized cells. Wearers that are
+     * already lit are considered first, so the current leaders keep their lights between sweeps
+     * instead of flickering; each wearer not yet claimed leads a new cluster and claims everyone
+     * unclaimed within the radius. The leader comes first in {@link Cluster#members}.
+     */
+    private List<Cluster> cluster(LightShard shard, List<Wearer> wearers) {
+
+        wearers.sort(Comparator
+                .comparing((Wearer w) -> !shard.appliedLights.containsKey(w.handle().getUuid()))
+                .thenComparing(w -> w.handle().getUuid()));
+
+        Map<Long, List<Wearer>> cells = new HashMap<>();
+
+        for (Wearer wearer : wearers)
+            cells.computeIfAbsent(getRegionKey(Math.floorDiv(wearer.x(), CLUSTER_RADIUS), Math.floorDiv(wearer.z(), CLUSTER_RADIUS)),
+                    k -> new ArrayList<>()).add(wearer);
+
+        Set<Wearer> claimed = new HashSet<>();
+
+        Map<Long, Integer> leadersPerRegion = new HashMap<>();
+
+        List<Cluster> clusters = new ArrayList<>();
+
+        for (Wearer leader : wearers) {
+
+            if (!claimed.add(leader))
+                continue;
+
+            List<Wearer> members = new ArrayList<>();
+
+            members.add(leader);
+
+            int cellX = Math.floorDiv(leader.x(), CLUSTER_RADIUS);
+            int cellZ = Math.floorDiv(leader.z(), CLUSTER_RADIUS);
+
+            for (int dx = -1; dx <= 1; dx++) {
+
+                for (int dz = -1; dz <= 1; dz++) {
+
+                    for (Wearer other : cells.getOrDefault(getRegionKey(cellX + dx, cellZ + dz), List.of())) {
+
+                        if (Math.abs(other.x() - leader.x()) <= CLUSTER_RADIUS
+                                && Math.abs(other.z() - leader.z()) <= CLUSTER_RADIUS
+                                && claimed.add(other))
+                            members.add(other);
+
+                    }
+                }
+            }
+
+            long regionKey = getRegionKey(leader.x() >> REGION_SHIFT, leader.z() >> REGION_SHIFT);
+
+            int leaders = leadersPerRegion.merge(regionKey, 1, Integer::sum);
+
+            ColorLight light = leaders <= MAX_LIGHTS_PER_REGION
+                    ? RADIUS_LEVELS[getDensityLevel(members.size())]
+                    : null;
+
+            clusters.add(new Cluster(members, light));
+        }
+
+        return clusters;
+    }
+
+    private void setLight(LightShard shard, PlayerHandle handle, ColorLight target) {
+
+        ColorLight current = shard.appliedLights.get(handle.getUuid());
+
+        if (current == target)
+            return;
+
+        if (!handle.isValid())
+            return;
+
+        if (Objects.isNull(target)) {
+
+            shard.appliedLights.remove(handle.getUuid());
+
+            removeLight.accept(handle);
+
+        } else {
+
+            shard.appliedLights.put(handle.getUuid(), target);
+
+            applyLight.accept(handle, target);
+
+        }
+    }
+
+    private static int getDensityLevel(int wearersInCluster) {
+
+        if (wearersInCluster <= 1)
+            return 0;
+
+        if (wearersInCluster <= MAX_LIGHTS_PER_REGION)
+            return 1;
+
+        if (wearersInCluster <= MAX_LIGHTS_PER_REGION * 2)
+            return 2;
+
+        return 3;
+    }
+
+    private static long getRegionKey(int x, int z) {
+
+        return (long) x & 0xFFFFFFFFL | ((long) z & 0xFFFFFFFFL) << 32;
+
+    }
+
+    private record Wearer(PlayerHandle handle, int x, int z) {}
+
+    /**
+     * A leader, first in {@code members}, and the wearers sharing its light; {@code light} is
+     * {@code null} when the region's budget is spent.
+     */
+    private record Cluster(List<Wearer> members, ColorLight light) {}
+
+    /**
+     * Per-world wearers and the lights currently applied to them. Only the world's own thread
+     * touches it.
+     */
+    private static class LightShard {
+
+        private final Map<UUID, PlayerHandle> wearers = new HashMap<>();
+        private final Map<UUID, ColorLight> appliedLights = new HashMap<>();
+
+        /**
+         * Players untracked since the last sweep, whose light it clears.
+         */
+        private final Map<UUID, PlayerHandle> unlit = new HashMap<>();
+
+        private boolean sweeping = false;
+        private boolean dirty = false;
+        private long lastSweepTick = Long.MIN_VALUE / 2;
+
+    }
+}
@@ -1,236 +1,689 @@
 package com.fractalgs.services.managers;
 
-import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
-import com.hypixel.hytale.logger.HytaleLogger;
+import com.fractalgs.data.OreVeinFeature;
+import com.fractalgs.data.store.FlatFileOreStore;
+import com.fractalgs.data.store.OreStore;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PluginIO;
+import com.fractalgs.utils.PluginSettings;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldShards;
+import com.fractalgs.utils.jfr.OreChunkEvent;
+import com.fractalgs.utils.jfr.OreDatabaseEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Random;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Places Lost ore in chunks as they are generated.
+ * <p>
+ * Placement is an {@link OreVeinFeature} applied on the generator thread while a newly generated
+ * chunk is still being set up. Chunks that existed before the plugin was installed are backfilled
+ * the first time they load; the per-world databases only exist to tell those apart from chunks
+ * that already have ores.
+ * <p>
+ * Every processed chunk also keeps the packed positions of the ores placed in it, saved in the same
+ * database and trimmed as ore blocks are broken, so {@link #findNearest} answers from the index
+ * without reading any blocks but its few results.
+ * <p>
+ * With {@code ore.deferred} set, loads only queue their chunk and each world places ores on its
+ * own thread under a per-tick budget, nearest to a player first, so bursts of streamed-in chunks
+ * are spread over several ticks.
+ * <p>
+ * The databases live in the {@link OreStore} named by {@code ore.store}: plain files by default,
+ * {@code locked} for servers that share the directory between processes, or {@code memory}.
+ */
 public class OreGenerationManager {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-
-    private static final String[] ORE_CANDIDATES = {
-            "Lost_OreStone"
-    };
+    private static final long AUTOSAVE_INTERVAL_MILLIS = 300_000L;
+    private static final long SHUTDOWN_SUBMIT_TIMEOUT_MILLIS = 1_000L;
 
-    private static final String[] REPLACEABLE_NAMES = {
-            "Rock_Stone"
-    };
+    private static final int CHUNK_SIZE = 32;
 
-    private static final int SAMPLES_PER_CHUNK = 100;
-    private static final int MAX_VEIN_SIZE = 3;
-    private static final int MIN_HEIGHT = 0;
-    private static final int MAX_HEIGHT = 100;
+    /**
+     * In deferred mode, pending chunks this close to a player (in chunks, Chebyshev) are finished
+     * even over the tick budget, so nobody reaches unprocessed stone.
+     * <p>
+     * This is a fixed ring rather than the view distance because it only has to cover what a
+     * player can touch before the next pass: passes run every tick against fresh positions, a
+     * player can only break or see into blocks within reach of their own chunk, and nothing short
+     * of a teleport crosses a 32-block chunk in one tick. Two chunks therefore leaves one chunk of
+     * slack for movement between passes. Chunks further out, though visible, are finished within the
+     * budget on the following ticks; sizing the ring from the view distance would put nearly every
+     * pending chunk over budget and defeat deferring.
+     */
+    private static final int MUST_FINISH_CHUNKS = 2;
 
-    private final Random random = new Random();
+    private static final long DEFAULT_DEFERRED_BUDGET_MICROS = 500L;
 
-    private final Set<Integer> replaceableIds = new HashSet<>();
+    public record OrePosition(int x, int y, int z) {}
 
-    private final Set<Long> processedChunks = ConcurrentHashMap.newKeySet();
+    /**
+     * Chunks recorded by the single pre-sharding database, which didn't know their world. They
+     * count as processed in every world so upgraded servers don't get ores twice.
+     */
+    private static final Set<Long> legacyChunks = new HashSet<>();
 
-    private final Path dbFile = Path.of("ore_gen_database.dat");
+    private static final Path legacyDbFile = Path.of("ore_gen_database.dat");
+    private static final Path dbDirectory = Path.of("ore_gen_database");
 
-    private boolean initialized = false;
+    private static final WorldShards<OreShard> shards = new WorldShards<>(world -> loadShard(world.getWorld()), OreGenerationManager::unloadShard);
 
-    private volatile boolean isDirty = false;
+    private static volatile OreStore store = new FlatFileOreStore(dbDirectory);
 
-    private int oreId = -1;
+    private static volatile OreVeinFeature feature = null;
 
-    private BlockType oreBlockType = null;
+    private static boolean deferred = false;
+    private static long deferredBudgetNanos = DEFAULT_DEFERRED_BUDGET_MICROS * 1_000L;
 
     public void register(JavaPlugin plugin) {
 
-        loadDatabase();
+        deferred = PluginSettings.getBoolean("ore.deferred", false);
+        deferredBudgetNanos = PluginSettings.getLong("ore.deferred.budget.micros", DEFAULT_DEFERRED_BUDGET_MICROS) * 1_000L;
 
-        plugin.getEventRegistry().registerGlobal(ChunkPreLoadProcessEvent.class, event -> {
+        store = OreStore.create(PluginSettings.getString("ore.store", "file"), dbDirectory);
 
-            if (!initialized)
-                initializeIDs();
+        if (Files.exists(legacyDbFile))
+            loadDatabase(legacyDbFile.toString(), () -> FlatFileOreStore.read(legacyDbFile, (key, ores) -> legacyChunks.add(key)));
 
-            if (oreId <= 0
-                    || oreBlockType == null)
-                return;
+        plugin.getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class, event -> feature = OreVeinFeature.resolve());
 
-            WorldChunk chunk = event.getChunk();
+        // Resolving is a handful of asset map lookups, so it runs right here on the setup thread;
+        // generate() retries for chunks that load before the ore block does.
+        feature = OreVeinFeature.resolve();
 
-            long chunkKey = getChunkKey(chunk.getX(), chunk.getZ());
+        plugin.getEventRegistry().registerGlobal(ChunkPreLoadProcessEvent.class, TickWatchdog.guard("OreGenerationManager", (ChunkPreLoadProcessEvent event) -> {
 
-            boolean isNew = event.isNewlyGenerated();
-            boolean isProcessed = processedChunks.contains(chunkKey);
+            long start = System.nanoTime();
 
-            if (isNew || !isProcessed) {
+            try {
 
-                generateOres(chunk);
+                WorldChunk chunk = event.getChunk();
 
-                processedChunks.add(chunkKey);
-                isDirty = true;
+                if (Objects.isNull(chunk.getWorld()))
+                    return;
 
-            }
-        });
+                OreShard shard = shards.get(chunk.getWorld());
 
-        Thread autoSaveThread = new Thread(() -> {
+                if (Objects.isNull(shard))
+                    return;
 
-            while (true) {
+                long chunkKey = getChunkKey(chunk.getX(), chunk.getZ());
 
-                try {
+                boolean backfill = !event.isNewlyGenerated();
 
-                    Thread.sleep(300000);
+                if (backfill
+                        && (shard.chunks.containsKey(chunkKey) || legacyChunks.contains(chunkKey)))
+                    return;
 
-                    if (isDirty)
-                        saveDatabase();
+                if (deferred) {
 
-                } catch (InterruptedException e) {
-                    break;
+                    if (Objects.isNull(shard.pending.put(chunkKey, backfill)))
+                        shard.arrivals.add(chunkKey);
+
+                    if (shard.draining.compareAndSet(false, true))
+                        scheduleDrain(shard);
+
+                    return;
                 }
+
+                process(shard, chunk, chunkKey, backfill);
+
+            } finally {
+
+                PluginMetrics.ORE_CHUNK.record(System.nanoTime() - start);
+
             }
+        }));
 
-        });
+        PluginMetrics.gauge("ore.pending", () -> shards.values().stream().mapToLong(shard -> shard.pending.size()).sum());
+        PluginMetrics.gauge("ore.db.entries", () -> shards.values().stream().mapToLong(shard -> shard.chunks.size()).sum());
+
+        PluginIO.schedule("ore-autosave", AUTOSAVE_INTERVAL_MILLIS, () -> {
 
-        autoSaveThread.setDaemon(true);
-        autoSaveThread.start();
+            for (OreShard shard : shards.values())
+                if (!shard.changed.isEmpty())
+                    PluginIO.trySubmit(shard.location, () -> saveDatabase(shard));
 
+        });
     }
 
+    /**
+     * Queues a final save of every world; {@link PluginIO#shutdown} is what waits for them.
+     */
     public void shutdown() {
 
-        saveDatabase();
+        try {
+
+            for (OreShard shard : shards.values())
+                if (!shard.changed.isEmpty())
+                    PluginIO.submit(shard.location, () -> saveDatabase(shard), SHUTDOWN_SUBMIT_TIMEOUT_MILLIS);
 
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
     }
 
-    private void initializeIDs() {
+    /**
+     * Returns up to {@code limit} indexed ores within {@code radius} blocks of the position, nearest
+     * first. Must be called on the world thread. Results are checked against the loaded blocks, and
+     * ores that are gone are dropped from the index on the way.
+     */
+    public static List<OrePosition> findNearest(World world, int x, int y, int z, int radius, int limit) {
+
+        long start = System.nanoTime();
+
+        try {
 
-        BlockTypeAssetMap<String, BlockType> map = BlockType.getAssetMap();
+            OreShard shard = shards.find(world);
+            OreVeinFeature current = feature;
 
-        for (String candidate : ORE_CANDIDATES) {
+            if (Objects.isNull(shard)
+                    || Objects.isNull(current))
+                return List.of();
 
-            int id = map.getIndex(candidate);
+            List<OrePosition> candidates = new ArrayList<>();
 
-            if (id > 0) {
+            long radiusSquared = (long) radius * radius;
 
-                this.oreId = id;
+            for (int chunkX = Math.floorDiv(x - radius, CHUNK_SIZE); chunkX <= Math.floorDiv(x + radius, CHUNK_SIZE); chunkX++) {
 
-                this.oreBlockType = map.getAsset(id);
+                for (int chunkZ = Math.floorDiv(z - radius, CHUNK_SIZE); chunkZ <= Math.floorDiv(z + radius, CHUNK_SIZE); chunkZ++) {
 
-                break;
+                    int[] ores = shard.chunks.get(getChunkKey(chunkX, chunkZ));
+
+                    if (Objects.isNull(ores))
+                        continue;
+
+                    for (int packed : ores) {
+
+                        int oreX = chunkX * CHUNK_SIZE + OreVeinFeature.localX(packed);
+                        int oreY = OreVeinFeature.y(packed);
+                        int oreZ = chunkZ * CHUNK_SIZE + OreVeinFeature.localZ(packed);
+
+                        if (distanceSquared(x, y, z, oreX, oreY, oreZ) <= radiusSquared)
+                            candidates.add(new OrePosition(oreX, oreY, oreZ));
+                    }
+                }
             }
-        }
 
-        for (String name : REPLACEABLE_NAMES) {
+            candidates.sort(Comparator.comparingLong(ore -> distanceSquared(x, y, z, ore.x(), ore.y(), ore.z())));
+
+            List<OrePosition> found = new ArrayList<>();
+
+            for (OrePosition ore : candidates) {
+
+                if (found.size() >= limit)
+                    break;
+
+                WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(ore.x(), ore.z()));
+
+                if (Objects.isNull(chunk))
+                    continue;
+
+                if (chunk.getBlock(ore.x() & (CHUNK_SIZE - 1), ore.y(), ore.z() & (CHUNK_SIZE - 1)) == current.getOreId()) {
+
+                    found.add(ore);
+
+                } else {
+
+                    removeOre(world, ore.x(), ore.y(), ore.z());
+
+                }
+            }
+
+            return found;
+
+        } finally {
 
-            int id = map.getIndex(name);
+            PluginMetrics.ORE_SCAN.record(System.nanoTime() - start);
 
-            if (id > 0)
-                replaceableIds.add(id);
         }
+    }
+
+    /**
+     * Drops a broken block from the ore index, if it was an indexed ore.
+     */
+    public static void removeOre(World world, int x, int y, int z) {
+
+        OreShard shard = shards.find(world);
+
+        if (Objects.isNull(shard))
+            return;
+
+        int packed = OreVeinFeature.pack(x, y, z);
+
+        shard.chunks.computeIfPresent(getChunkKey(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(z, CHUNK_SIZE)), (key, ores) -> {
+
+            for (int i = 0; i < ores.length; i++) {
+
+                if (ores[i] != packed)
+                    continue;
+
+                int[] remaining = Arrays.copyOf(ores, ores.length - 1);
+
+                System.arraycopy(ores, i + 1, remaining, i, ores.length - i - 1);
 
-        initialized = true;
+                shard.changed.add(key);
+
+                return remaining.length > 0
+                        ? remaining
+                        : OreVeinFeature.NO_ORES;
+            }
+
+            return ores;
+        });
     }
 
-    private void generateOres(WorldChunk chunk) {
+    private static void process(OreShard shard, WorldChunk chunk, long chunkKey, boolean backfill) {
+
+        OreChunkEvent jfr = new OreChunkEvent();
+
+        jfr.begin();
+
+        int[] ores = generate(chunk);
+
+        if (Objects.isNull(ores))
+            return;
+
+        markProcessed(shard, chunkKey, ores);
 
-        for (int i = 0; i < SAMPLES_PER_CHUNK; i++) {
+        if (backfill)
+            PluginMetrics.ORE_CHUNKS_BACKFILLED.increment();
 
-            int x = random.nextInt(32);
-            int z = random.nextInt(32);
-            int y = random.nextInt(MAX_HEIGHT - MIN_HEIGHT) + MIN_HEIGHT;
+        if (jfr.shouldCommit()) {
 
-            int veinSize = random.nextInt(MAX_VEIN_SIZE) + 1;
+            jfr.world = shard.world.getName();
+            jfr.chunkX = chunk.getX();
+            jfr.chunkZ = chunk.getZ();
+            jfr.samples = OreVeinFeature.SAMPLES_PER_CHUNK;
+            jfr.blocksPlaced = ores.length;
+            jfr.backfill = backfill;
+            jfr.deferred = deferred;
 
-            generateVein(chunk, x, y, z, veinSize);
+            jfr.commit();
         }
     }
 
-    private void generateVein(WorldChunk chunk, int startX, int startY, int startZ, int size) {
+    /**
+     * Deferred-mode pass over a world's pending chunks, on its thread, nearest to a player first.
+     * Stops at the tick budget once every chunk near a player is done and carries on next tick.
+     * Chunks unloaded before their turn are skipped; they are still unprocessed, so their next
+     * load queues them again.
+     * <p>
+     * Pending chunks wait in a heap keyed by their distance to the nearest player. A pass only
+     * scores the chunks that arrived since the last one, and re-keys the whole heap only when some
+     * player has moved to another chunk, so a pass over a large backlog costs the chunks it
+     * processes rather than a sort of the backlog. Scoring runs inside the pass's budget.
+     */
+    private static void drain(OreShard shard) {
 
-        int x = startX;
-        int y = startY;
-        int z = startZ;
+        World world = shard.world;
 
-        for (int j = 0; j < size; j++) {
+        long start = System.nanoTime();
 
-            if (x >= 0 && x < 32
-                    && z >= 0 && z < 32
-                    && y > 0) {
+        try {
 
-                try {
+            if (!world.isAlive()) {
 
-                    int currentId = chunk.getBlock(x, y, z);
+                shard.pending.clear();
+                shard.arrivals.clear();
+                shard.queue.clear();
 
-                    if (replaceableIds.contains(currentId)
-                            && Objects.nonNull(this.oreBlockType))
-                        chunk.setBlock(x, y, z, this.oreId, this.oreBlockType, 0, 0, 0);
+                return;
+            }
+
+            List<int[]> players = getPlayerChunks(world);
+
+            Set<Long> playerChunks = new HashSet<>();
+
+            for (int[] player : players)
+                playerChunks.add(getChunkKey(player[0], player[1]));
 
-                } catch (Exception ignored) {}
+            if (!playerChunks.equals(shard.scoredFor)) {
+
+                List<Queued> rescored = new ArrayList<>(shard.queue.size());
+
+                for (Queued queued : shard.queue)
+                    rescored.add(new Queued(queued.chunkKey(), distanceToPlayers(queued.chunkKey(), players)));
+
+                shard.queue.clear();
+                shard.queue.addAll(rescored);
+
+                shard.scoredFor = playerChunks;
             }
 
-            int dir = random.nextInt(6);
+            Long arrived;
+
+            while (Objects.nonNull(arrived = shard.arrivals.poll()))
+                shard.queue.add(new Queued(arrived, distanceToPlayers(arrived, players)));
 
-            switch (dir) {
-                case 0: x++; break;
-                case 1: x--; break;
-                case 2: y++; break;
-                case 3: y--; break;
-                case 4: z++; break;
-                case 5: z--; break;
+            long deadline = start + deferredBudgetNanos;
+
+            while (!shard.queue.isEmpty()) {
+
+                if (shard.queue.peek().distance() > MUST_FINISH_CHUNKS
+                        && System.nanoTime() >= deadline)
+                    break;
+
+                long chunkKey = shard.queue.poll().chunkKey();
+
+                Boolean backfill = shard.pending.remove(chunkKey);
+
+                if (Objects.isNull(backfill))
+                    continue;
+
+                WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunk((int) (long) chunkKey, (int) (chunkKey >>> 32)));
+
+                if (Objects.nonNull(chunk))
+                    process(shard, chunk, chunkKey, backfill);
             }
+
+        } catch (Exception e) {
+
+            ErrorSink.report("OreGenerationManager.drain", e);
+
+        } finally {
+
+            PluginMetrics.ORE_DEFERRED_PASS.record(System.nanoTime() - start);
+
+            shard.draining.set(false);
+
+            if (!shard.pending.isEmpty()
+                    && world.isAlive()
+                    && shard.draining.compareAndSet(false, true))
+                scheduleDrain(shard);
         }
     }
 
-    private long getChunkKey(int x, int z) {
+    /**
+     * Queues the next pass for the world's next tick on its own tick schedule.
+     */
+    private static void scheduleDrain(OreShard shard) {
+
+        shard.ticks.executeAt(shard.ticks.getTick() + 1, TickWatchdog.guard("OreGenerationManager.drain", () -> drain(shard)));
+
+    }
+
+    private static List<int[]> getPlayerChunks(World world) {
+
+        List<int[]> chunks = new ArrayList<>();
+
+        for (Player player : world.getPlayers()) {
+
+            TransformComponent transform = player.getTransformComponent();
+
+            if (Objects.isNull(transform))
+                continue;
+
+            Vector3d position = transform.getPosition();
+
+            chunks.add(new int[] {
+                    Math.floorDiv((int) Math.floor(position.x), CHUNK_SIZE),
+                    Math.floorDiv((int) Math.floor(position.z), CHUNK_SIZE)
+            });
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Chebyshev distance in chunks to the nearest player, or {@link Integer#MAX_VALUE} with nobody
+     * in the world.
+     */
+    private static int distanceToPlayers(long chunkKey, List<int[]> players) {
+
+        int chunkX = (int) chunkKey;
+        int chunkZ = (int) (chunkKey >>> 32);
+
+        int nearest = Integer.MAX_VALUE;
+
+        for (int[] player : players)
+            nearest = Math.min(nearest, Math.max(Math.abs(player[0] - chunkX), Math.abs(player[1] - chunkZ)));
+
+        return nearest;
+    }
+
+    /**
+     * Returns the placed ores, or {@code null} if the ore block isn't loaded or placement failed
+     * outright, so the chunk is tried again later instead of being recorded without its ores.
+     */
+    private static int[] generate(WorldChunk chunk) {
+
+        OreVeinFeature current = feature;
+
+        if (Objects.isNull(current))
+            current = feature = OreVeinFeature.resolve();
+
+        if (Objects.isNull(current))
+            return null;
+
+        try {
+
+            return current.place(chunk, ThreadLocalRandom.current());
+
+        } catch (Exception e) {
+
+            ErrorSink.report("OreGenerationManager.generate", e);
+
+            return null;
+
+        }
+    }
+
+    private static void markProcessed(OreShard shard, long chunkKey, int[] ores) {
+
+        shard.chunks.put(chunkKey, ores);
+        shard.changed.add(chunkKey);
+
+        PluginMetrics.ORE_CHUNKS_PROCESSED.increment();
+    }
+
+    private static long distanceSquared(int x1, int y1, int z1, int x2, int y2, int z2) {
+
+        long dx = x2 - x1;
+        long dy = y2 - y1;
+        long dz = z2 - z1;
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static long getChunkKey(int x, int z) {
 
         return (long) x & 0xFFFFFFFFL | ((long) z & 0xFFFFFFFFL) << 32;
 
     }
 
-    private void loadDatabase() {
+    /**
+     * Creates a world's shard and loads its database. Runs once per world, on the thread of its
+     * first chunk load and outside the shard table's lock, so other worlds' lookups don't wait on
+     * the disk.
+     */
+    private static OreShard loadShard(World world) {
 
-        if (!Files.exists(dbFile))
-            return;
+        OreShard shard = new OreShard(world, store);
 
-        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(dbFile.toFile())))) {
+        loadDatabase(shard.location, () -> shard.store.load(shard.name, shard.chunks::put));
 
-            int count = dis.readInt();
+        return shard;
+    }
+
+    /**
+     * Saves a removed world's shard one last time; it's reloaded from the store if the world comes
+     * back.
+     */
+    private static void unloadShard(OreShard shard) {
+
+        if (!shard.changed.isEmpty())
+            PluginIO.trySubmit(shard.location, () -> saveDatabase(shard));
+
+    }
 
-            for (int i = 0; i < count; i++)
-                processedChunks.add(dis.readLong());
+    private static void loadDatabase(String location, Callable<Integer> load) {
+
+        long start = System.nanoTime();
+
+        OreDatabaseEvent jfr = new OreDatabaseEvent();
+
+        jfr.begin();
+
+        int loaded = 0;
+        boolean succeeded = false;
+
+        try {
+
+            loaded = load.call();
+            succeeded = true;
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("OreGenerationManager.loadDatabase", e);
+
+        } finally {
+
+            PluginMetrics.ORE_DB_LOAD.record(System.nanoTime() - start);
+
+            commitDatabaseEvent(jfr, "load", location, loaded, 0, succeeded);
 
         }
     }
 
-    private void saveDatabase() {
+    /**
+     * Runs on the world database's {@link PluginIO} lane, so saves of one world never overlap. The
+     * changed keys are taken before the chunks are copied, so chunks processed while the store
+     * writes are saved next time; a failed save puts its keys back and is reported by
+     * {@link PluginIO}. Chunks the store reports from other processes join the shard as processed.
+     */
+    private static void saveDatabase(OreShard shard) throws IOException {
 
-        if (!isDirty)
+        if (shard.changed.isEmpty())
             return;
 
-        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dbFile.toFile())))) {
+        Set<Long> batch = new HashSet<>(shard.changed);
 
-            dos.writeInt(processedChunks.size());
+        shard.changed.removeAll(batch);
 
-            for (Long key : processedChunks)
-                dos.writeLong(key);
+        long start = System.nanoTime();
 
-            isDirty = false;
+        OreDatabaseEvent jfr = new OreDatabaseEvent();
 
-        } catch (Exception e) {
+        jfr.begin();
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+        int saved = 0;
+        long written = 0;
+        boolean succeeded = false;
+
+        try {
+
+            Map<Long, int[]> chunks = new HashMap<>(shard.chunks);
+
+            written = shard.store.save(shard.name, chunks, batch, shard.chunks::putIfAbsent);
+
+            PluginMetrics.ORE_DB_BYTES_WRITTEN.add(written);
+
+            saved = chunks.size();
+            succeeded = true;
+
+        } catch (IOException e) {
+
+            shard.changed.addAll(batch);
+
+            throw e;
+
+        } finally {
+
+            PluginMetrics.ORE_DB_SAVE.record(System.nanoTime() - start);
+
+            commitDatabaseEvent(jfr, "save", shard.location, saved, written, succeeded);
+
+        }
+    }
+
+    private static void commitDatabaseEvent(OreDatabaseEvent jfr, String operation, String location, int chunks, long bytes, boolean succeeded) {
+
+        if (!jfr.shouldCommit())
+            return;
+
+        jfr.operation = operation;
+        jfr.file = location;
+        jfr.chunks = chunks;
+        jfr.bytes = bytes;
+        jfr.succeeded = succeeded;
+
+        jfr.commit();
+    }
 
+    private record Queued(long chunkKey, int distance) {}
+
+    /**
+     * Processed chunks of one world and the ores placed in each. Chunk loads can arrive on several
+     * generator threads, so the map stays concurrent, but it is no longer shared between worlds.
+     * Ore arrays are never modified in place, only replaced.
+     */
+    private static class OreShard {
+
+        private final World world;
+        private final TickExecutor ticks;
+        private final String name;
+
+        /**
+         * The store the shard was loaded from, kept so it's saved back there.
+         */
+        private final OreStore store;
+        private final String location;
+
+        private final Map<Long, int[]> chunks = new ConcurrentHashMap<>();
+
+        /**
+         * Deferred mode only: chunks waiting for their ores, mapped to whether they are backfills.
+         */
+        private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        /**
+         * Chunks newly added to {@link #pending}, waiting to be scored into {@link #queue}.
+         */
+        private final Queue<Long> arrivals = new ConcurrentLinkedQueue<>();
+
+        /**
+         * World thread only: pending chunks by distance to the nearest player, scored against the
+         * player chunks in {@link #scoredFor}.
+         */
+        private final PriorityQueue<Queued> queue = new PriorityQueue<>(Comparator.comparingInt(Queued::distance));
+        private Set<Long> scoredFor = Set.of();
+
+        /**
+         * Chunks processed or trimmed since the last save.
+         */
+        private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+        private OreShard(World world, OreStore store) {
+            this.world = world;
+            this.ticks = TickExecutor.of(world);
+            this.name = world.getName();
+            this.store = store;
+            this.location = store.location(name);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.fractalgs.services.managers;
+
+import com.fractalgs.data.ArmorTiers;
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.PlayerHandle;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldHelper;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Single join pipeline for all armor managers.
+ * <p>
+ * Joins are batched per world: the first join schedules one wakeup {@link #SETTLE_TICKS} later,
+ * and every player who joins that world before it fires rides along. When the batch runs, each
+ * player's armor is resolved once and handed to every {@link Stage} in registration order. A batch
+ * larger than {@link #MAX_JOINS_PER_TICK} is spread over the following ticks, so a mass join costs
+ * one timer per world and a bounded amount of work per tick.
+ */
+public class PlayerJoinManager {
+
+    private static final int SETTLE_TICKS = 10;
+
+    private static final int MAX_JOINS_PER_TICK = 16;
+
+    @FunctionalInterface
+    public interface Stage {
+        void onJoin(PlayerHandle handle, ArmorTiers tiers);
+    }
+
+    /**
+     * A player waiting for its batch. The handle is resolved when the batch runs, since the player
+     * may not have an entity yet when it's queued.
+     */
+    private record Joiner(UUID uuid, Supplier<PlayerHandle> handle) {}
+
+    private final List<Stage> stages;
+
+    private final Map<TickExecutor, List<Joiner>> pending = new HashMap<>();
+
+    public PlayerJoinManager(Stage... stages) {
+        this.stages = List.of(stages);
+    }
+
+    public void register(JavaPlugin plugin) {
+
+        plugin.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, TickWatchdog.guard("PlayerJoinManager", (AddPlayerToWorldEvent event) -> {
+
+            Player player = event.getHolder().getComponent(Player.getComponentType());
+
+            if (Objects.nonNull(player))
+                enqueue(TickExecutor.of(event.getWorld()), player.getUuid(), () -> PlayerHandle.of(player));
+
+        }));
+    }
+
+    /**
+     * {@link PlayerLifecycleManager} hook: a player who leaves before their batch runs is dropped
+     * from it.
+     */
+    public void onLeave(UUID uuid, TickExecutor world) {
+
+        synchronized (pending) {
+
+            for (List<Joiner> batch : pending.values())
+                batch.removeIf(joiner -> Objects.equals(joiner.uuid(), uuid));
+
+        }
+    }
+
+    public int getPendingJoins() {
+
+        synchronized (pending) {
+
+            return pending.values().stream().mapToInt(List::size).sum();
+
+        }
+    }
+
+    /**
+     * Adds a player to {@code world}'s next batch, scheduling the batch if it's the first. The
+     * handle is resolved when the batch runs; a {@code null} or invalid one is skipped.
+     */
+    public void enqueue(TickExecutor world, UUID uuid, Supplier<PlayerHandle> handle) {
+
+        boolean first;
+
+        synchronized (pending) {
+
+            List<Joiner> batch = pending.get(world);
+
+            first = Objects.isNull(batch);
+
+            if (first) {
+
+                batch = new ArrayList<>();
+
+                pending.put(world, batch);
+
+            }
+
+            batch.add(new Joiner(uuid, handle));
+        }
+
+        if (first)
+            WorldHelper.waitTicks(world, SETTLE_TICKS, () -> flush(world));
+    }
+
+    private void flush(TickExecutor world) {
+
+        List<Joiner> batch;
+
+        synchronized (pending) {
+
+            batch = pending.remove(world);
+
+        }
+
+        if (Objects.nonNull(batch))
+            process(world, batch, 0);
+    }
+
+    private void process(TickExecutor world, List<Joiner> batch, int from) {
+
+        long start = System.nanoTime();
+
+        int to = Math.min(batch.size(), from + MAX_JOINS_PER_TICK);
+
+        for (int i = from; i < to; i++) {
+
+            PlayerHandle handle = batch.get(i).handle().get();
+
+            if (Objects.isNull(handle)
+                    || !handle.isValid())
+                continue;
+
+            ArmorTiers tiers = resolveTiers(handle.getInventory());
+
+            for (Stage stage : stages) {
+
+                try {
+
+                    stage.onJoin(handle, tiers);
+
+                } catch (Exception e) {
+
+                    ErrorSink.report("PlayerJoinManager.process", e);
+
+                }
+            }
+        }
+
+        PluginMetrics.JOIN_BATCH.record(System.nanoTime() - start);
+        PluginMetrics.JOINS.add(to - from);
+
+        if (to < batch.size())
+            WorldHelper.waitTicks(world, 1, () -> process(world, batch, to));
+    }
+
+    private static ArmorTiers resolveTiers(Inventory inventory) {
+
+        try {
+
+            if (Objects.isNull(inventory))
+                return ArmorTiers.NONE;
+
+            ItemContainer armor = inventory.getArmor();
+
+            return new ArmorTiers(
+                    HeadManager.getEquippedTier(armor),
+                    ChestManager.getEquippedTier(armor),
+                    LegsManager.getEquippedTier(armor),
+                    HandsManager.getEquippedTier(armor));
+
+        } catch (Exception e) {
+
+            return ArmorTiers.NONE;
+
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.fractalgs.services.managers;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.TickWatchdog;
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.TickExecutor;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.player.DrainPlayerFromWorldEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Tears down per-player state when a player leaves a world, either by disconnecting or by moving
+ * to another world.
+ * <p>
+ * The player's pending {@link PlayerTasks} are cancelled first, so no loop can fire again and
+ * re-create state behind the teardown, then every {@link LeaveHook} drops what it keeps for the
+ * player, on the thread of the world they left for state sharded per world. A world change is handled the same way as a disconnect: the join pipeline sets
+ * everything up again once the player arrives in the new world.
+ */
+public class PlayerLifecycleManager {
+
+    /**
+     * Called on the thread that delivered the event. {@code world} is the world the player left, or
+     * {@code null} if it couldn't be determined; world-owned state should be handed over to that
+     * world's thread.
+     */
+    @FunctionalInterface
+    public interface LeaveHook {
+        void onLeave(UUID uuid, TickExecutor world);
+    }
+
+    private final List<LeaveHook> hooks;
+
+    public PlayerLifecycleManager(LeaveHook... hooks) {
+        this.hooks = List.of(hooks);
+    }
+
+    public void register(JavaPlugin plugin) {
+
+        plugin.getEventRegistry().registerGlobal(DrainPlayerFromWorldEvent.class, TickWatchdog.guard("PlayerLifecycleManager", (DrainPlayerFromWorldEvent event) -> {
+
+            Player player = event.getHolder().getComponent(Player.getComponentType());
+
+            if (Objects.nonNull(player))
+                release(player.getUuid(), TickExecutor.of(event.getWorld()));
+
+        }));
+
+        plugin.getEventRegistry().register(PlayerDisconnectEvent.class, TickWatchdog.guard("PlayerLifecycleManager", (PlayerDisconnectEvent event) ->
+                release(event.getPlayerRef().getUuid(), getWorld(event.getPlayerRef()))));
+    }
+
+    /**
+     * Runs the teardown for a player who left {@code world}, or an unknown world if {@code null}.
+     * Called from the leave events; the load simulator calls it directly for its stand-ins.
+     */
+    public void release(UUID uuid, TickExecutor world) {
+
+        PlayerTasks.cancelAll(uuid);
+
+        for (LeaveHook hook : hooks) {
+
+            try {
+
+                hook.onLeave(uuid, world);
+
+            } catch (Exception e) {
+
+                ErrorSink.report("PlayerLifecycleManager.release", e);
+
+            }
+        }
+    }
+
+    private static TickExecutor getWorld(PlayerRef playerRef) {
+
+        Ref<EntityStore> ref = playerRef.getReference();
+
+        if (Objects.isNull(ref)
+                || !ref.isValid())
+            return null;
+
+        World world = ref.getStore().getExternalData().getWorld();
+
+        return Objects.nonNull(world)
+                ? TickExecutor.of(world)
+                : null;
+    }
+}
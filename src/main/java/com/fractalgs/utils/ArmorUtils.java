@@ -1,8 +1,8 @@
 package com.fractalgs.utils;
 
+import com.fractalgs.utils.jfr.ThornsReflectEvent;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Ref;
-import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.movement.MovementManager;
 import com.hypixel.hytale.server.core.modules.entity.damage.Damage;
@@ -10,17 +10,23 @@ import com.hypixel.hytale.server.core.modules.entity.damage.DamageSystems;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import java.util.Objects;
-import java.util.logging.Level;
 
 public class ArmorUtils {
 
-    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final float THORNS_RATIO = 0.25f;
+    private static final float MIN_THORNS_AMOUNT = 0.5f;
 
     public static void applyThorns(Damage originalEvent, Player victim, CommandBuffer<EntityStore> commandBuffer, int armorTier) {
 
-        if (armorTier < 2)
+        float reflectedAmount = getThornsAmount(originalEvent.getAmount(), armorTier);
+
+        if (reflectedAmount <= 0.0f)
             return;
 
+        ThornsReflectEvent jfr = new ThornsReflectEvent();
+
+        jfr.begin();
+
         Damage.Source source = originalEvent.getSource();
 
         if (source instanceof Damage.EntitySource entitySource) {
@@ -32,21 +38,41 @@ public class ArmorUtils {
                 if (Objects.equals(attackerRef, victim.getReference()))
                     return;
 
-                float reflectedAmount = originalEvent.getAmount() * 0.25f;
-
-                if (reflectedAmount < 0.5f)
-                    return;
-
                 Damage.EntitySource thornsSource = new Damage.EntitySource(
                         Objects.requireNonNull(victim.getReference()));
 
                 Damage thornsDamage = new Damage(thornsSource, originalEvent.getDamageCauseIndex(), reflectedAmount);
 
                 DamageSystems.executeDamage(attackerRef, commandBuffer, thornsDamage);
+
+                if (jfr.shouldCommit()) {
+
+                    jfr.armorTier = armorTier;
+                    jfr.damage = originalEvent.getAmount();
+                    jfr.reflected = reflectedAmount;
+
+                    jfr.commit();
+                }
             }
         }
     }
 
+    /**
+     * Damage reflected back to the attacker, or {@code 0} if the armor tier or the hit is too low
+     * to reflect anything.
+     */
+    public static float getThornsAmount(float damageAmount, int armorTier) {
+
+        if (armorTier < 2)
+            return 0.0f;
+
+        float reflectedAmount = damageAmount * THORNS_RATIO;
+
+        return reflectedAmount < MIN_THORNS_AMOUNT
+                ? 0.0f
+                : reflectedAmount;
+    }
+
     public static MovementManager getMovementManager(Player player) {
 
         try {
@@ -59,7 +85,7 @@ public class ArmorUtils {
 
         } catch (Exception e) {
 
-            LOGGER.at(Level.WARNING).log(e.getMessage());
+            ErrorSink.report("ArmorUtils.getMovementManager", e);
 
             return null;
         }
@@ -0,0 +1,128 @@
+package com.fractalgs.utils;
+
+import com.fractalgs.utils.metrics.Counter;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Shared sink for exceptions caught on hot paths.
+ * <p>
+ * Errors are grouped by call site and exception type. The first one of a group is logged with its
+ * stack trace; after that the group is only counted, and a periodic {@link PluginIO} job started by
+ * {@link #start} logs a one-line summary of how many more happened once per
+ * {@link #SUMMARY_INTERVAL_MILLIS}, so the tail of a burst is reported even if no further error
+ * arrives. A repeat costs two map lookups and two atomic increments, so an error that fires every
+ * tick for every player turns into one log line a minute instead of a log storm.
+ * <p>
+ * Every group also counts into {@code errors.<site>} in {@link PluginMetrics}.
+ */
+public class ErrorSink {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long SUMMARY_INTERVAL_MILLIS = 60_000L;
+
+    private static final int STACK_DEPTH = 16;
+
+    private static final Map<String, Map<Class<?>, Group>> groups = new ConcurrentHashMap<>();
+
+    public static void report(String site, Throwable error) {
+
+        Map<Class<?>, Group> bySite = groups.get(site);
+
+        if (Objects.isNull(bySite))
+            bySite = groups.computeIfAbsent(site, k -> new ConcurrentHashMap<>());
+
+        Group group = bySite.get(error.getClass());
+
+        if (Objects.isNull(group)) {
+
+            Group created = new Group(site);
+
+            group = bySite.putIfAbsent(error.getClass(), created);
+
+            if (Objects.isNull(group)) {
+
+                created.counter.increment();
+
+                LOGGER.at(Level.WARNING).log(site + " failed: " + describe(error));
+
+                return;
+            }
+        }
+
+        group.counter.increment();
+        group.suppressed.incrementAndGet();
+    }
+
+    /**
+     * Starts the periodic summary job. Called at plugin setup, after {@link PluginIO#start}.
+     */
+    public static void start() {
+        PluginIO.schedule("ErrorSink", SUMMARY_INTERVAL_MILLIS, ErrorSink::flush);
+    }
+
+    /**
+     * Logs a summary for every group with errors that haven't been reported yet. Run by the
+     * periodic job, and at shutdown so the tail of a failure storm isn't lost.
+     */
+    public static void flush() {
+
+        long now = System.nanoTime();
+
+        for (Map.Entry<String, Map<Class<?>, Group>> site : groups.entrySet())
+            for (Map.Entry<Class<?>, Group> entry : site.getValue().entrySet())
+                summarize(site.getKey(), entry.getKey(), entry.getValue(), now - entry.getValue().lastLogNanos.getAndSet(now));
+    }
+
+    private static void summarize(String site, Class<?> type, Group group, long windowNanos) {
+
+        long count = group.suppressed.getAndSet(0L);
+
+        if (count == 0L)
+            return;
+
+        LOGGER.at(Level.WARNING).log(String.format("%s failed %d more time(s) with %s in the last %d s (%d at this site in total)",
+                site, count, type.getSimpleName(), windowNanos / 1_000_000_000L, group.counter.get()));
+    }
+
+    private static String describe(Throwable error) {
+
+        StringBuilder builder = new StringBuilder(error.toString());
+
+        StackTraceElement[] stack = error.getStackTrace();
+
+        for (int i = 0; i < Math.min(stack.length, STACK_DEPTH); i++)
+            builder.append("\n    at ").append(stack[i]);
+
+        if (stack.length > STACK_DEPTH)
+            builder.append("\n    ... ").append(stack.length - STACK_DEPTH).append(" more");
+
+        Throwable cause = error.getCause();
+
+        if (Objects.nonNull(cause)
+                && cause != error)
+            builder.append("\nCaused by: ").append(cause);
+
+        return builder.toString();
+    }
+
+    private static class Group {
+
+        private final Counter counter;
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private final AtomicLong lastLogNanos = new AtomicLong(System.nanoTime());
+
+        private Group(String site) {
+            this.counter = PluginMetrics.counter("errors." + site);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.fractalgs.utils;
+
+import com.fractalgs.utils.api.PlayerTasks;
+import com.fractalgs.utils.api.TickExecutor;
+import com.fractalgs.utils.api.WorldHelper;
+import com.hypixel.hytale.protocol.MovementSettings;
+import com.hypixel.hytale.protocol.SavedMovementStates;
+import com.hypixel.hytale.protocol.packets.player.SetMovementStates;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.entity.entities.player.movement.MovementManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player stack of movement contributions from gear and gadgets.
+ * <p>
+ * Every effect owns a named source and replaces its whole contribution with {@link #set}. The
+ * resulting {@link MovementSettings} are rebuilt from the defaults only when some source actually
+ * changed, and at most one update is sent to the client per tick no matter how many sources
+ * changed in between.
+ * <p>
+ * The base is the engine default except for fly speed, which starts from
+ * {@link #BASE_FLY_SPEED}: the value the anti-gravity gadget has always restored when a flight
+ * ends.
+ */
+public class MovementModifierStack {
+
+    public enum Property {
+        MAX_SPEED,
+        FORWARD_SPRINT_SPEED,
+        JUMP_FORCE,
+        HORIZONTAL_FLY_SPEED,
+        VERTICAL_FLY_SPEED,
+        CAN_FLY
+    }
+
+    public enum Operation {
+        ADD,
+        MULTIPLY,
+        SET
+    }
+
+    public record Modifier(Property property, Operation operation, float value) {}
+
+    /**
+     * Horizontal and vertical fly speed with no modifier on them.
+     */
+    public static final float BASE_FLY_SPEED = 10.32f;
+
+    private static final Map<UUID, PlayerStack> stacks = new ConcurrentHashMap<>();
+
+    public static void set(Player player, String source, List<Modifier> modifiers) {
+
+        PlayerStack stack = stacks.computeIfAbsent(player.getUuid(), k -> new PlayerStack());
+
+        synchronized (stack) {
+
+            if (Objects.equals(stack.sources.get(source), modifiers))
+                return;
+
+            stack.sources.put(source, List.copyOf(modifiers));
+        }
+
+        scheduleFlush(PlayerHandle.of(player), stack);
+    }
+
+    public static void clear(Player player, String source) {
+
+        PlayerStack stack = stacks.get(player.getUuid());
+
+        if (Objects.isNull(stack))
+            return;
+
+        synchronized (stack) {
+
+            if (Objects.isNull(stack.sources.remove(source)))
+                return;
+
+            stack.resync = true;
+        }
+
+        scheduleFlush(PlayerHandle.of(player), stack);
+    }
+
+    /**
+     * {@link com.fractalgs.services.managers.PlayerJoinManager} stage. Joining a world, respawns
+     * included, resets the player's movement settings on the server, so the cached flight state no
+     * longer says anything about the client: the next flush rebuilds the settings and always sends
+     * the flight state.
+     */
+    public static void invalidate(PlayerHandle handle) {
+
+        PlayerStack stack = stacks.get(handle.getUuid());
+
+        if (Objects.isNull(stack))
+            return;
+
+        synchronized (stack) {
+
+            stack.lastCanFly = null;
+            stack.resync = true;
+        }
+
+        scheduleFlush(handle, stack);
+    }
+
+    /**
+     * {@link com.fractalgs.services.managers.PlayerLifecycleManager} hook. The player's movement
+     * settings are rebuilt by the world they join next, so only the stack itself is dropped.
+     */
+    public static void release(UUID uuid) {
+        stacks.remove(uuid);
+    }
+
+    /**
+     * Marks the stack dirty and queues a flush on the player's world. A player between worlds has
+     * no handle yet; the change stays pending and is flushed by {@link #invalidate} when they join.
+     */
+    private static void scheduleFlush(PlayerHandle handle, PlayerStack stack) {
+
+        synchronized (stack) {
+
+            stack.dirty = true;
+
+            if (Objects.isNull(handle)
+                    || stack.flushScheduled)
+                return;
+
+            stack.handle = handle;
+            stack.flushScheduled = true;
+
+            TickExecutor world = handle.getExecutor();
+
+            if (world.getTick() == stack.lastFlushTick) {
+
+                PlayerTasks.waitTicks(handle.getUuid(), world, 1, () -> flush(stack));
+
+            } else {
+
+                WorldHelper.executeOnWorldThread(world, () -> flush(stack));
+
+            }
+        }
+    }
+
+    private static void flush(PlayerStack stack) {
+
+        PlayerHandle handle;
+        List<Modifier> modifiers = new ArrayList<>();
+
+        Boolean previousCanFly;
+        boolean resync;
+
+        synchronized (stack) {
+
+            stack.flushScheduled = false;
+
+            if (!stack.dirty)
+                return;
+
+            stack.dirty = false;
+
+            handle = stack.handle;
+
+            previousCanFly = stack.lastCanFly;
+            resync = stack.resync;
+
+            stack.resync = false;
+
+            for (List<Modifier> contribution : stack.sources.values())
+                modifiers.addAll(contribution);
+
+            if (stack.sources.isEmpty())
+                stacks.remove(handle.getUuid(), stack);
+        }
+
+        try {
+
+            Player player = handle.getPlayer();
+
+            if (Objects.isNull(player))
+                return;
+
+            MovementManager movement = ArmorUtils.getMovementManager(player);
+
+            if (Objects.isNull(movement))
+                return;
+
+            stack.lastFlushTick = handle.getExecutor().getTick();
+
+            movement.applyDefaultSettings();
+
+            MovementSettings settings = movement.getSettings();
+
+            settings.maxSpeedMultiplier = compose(settings.maxSpeedMultiplier, Property.MAX_SPEED, modifiers);
+            settings.forwardSprintSpeedMultiplier = compose(settings.forwardSprintSpeedMultiplier, Property.FORWARD_SPRINT_SPEED, modifiers);
+            settings.jumpForce = compose(settings.jumpForce, Property.JUMP_FORCE, modifiers);
+            settings.horizontalFlySpeed = compose(BASE_FLY_SPEED, Property.HORIZONTAL_FLY_SPEED, modifiers);
+            settings.verticalFlySpeed = compose(BASE_FLY_SPEED, Property.VERTICAL_FLY_SPEED, modifiers);
+            settings.canFly = compose(settings.canFly ? 1.0f : 0.0f, Property.CAN_FLY, modifiers) > 0.0f;
+
+            movement.update(player.getPlayerConnection());
+
+            synchronized (stack) {
+
+                stack.lastCanFly = settings.canFly;
+
+            }
+
+            // The flight state is sent when it changed, when nothing is known about the client's
+            // (first flush, or after a world join), and whenever a source went away, so a removed
+            // flight modifier can never leave the client flying on a stale cache.
+            if (resync
+                    || Objects.isNull(previousCanFly)
+                    || settings.canFly != previousCanFly) {
+
+                player.getPlayerConnection().write(new SetMovementStates(new SavedMovementStates(settings.canFly)));
+
+            }
+
+        } catch (Exception e) {
+
+            ErrorSink.report("MovementModifierStack.flush", e);
+
+        }
+    }
+
+    /**
+     * Additive contributions are summed onto the default, multiplicative ones are then applied in
+     * turn, and a {@link Operation#SET} overrides both.
+     */
+    private static float compose(float base, Property property, List<Modifier> modifiers) {
+
+        float added = 0.0f;
+        float multiplier = 1.0f;
+
+        Float override = null;
+
+        for (Modifier modifier : modifiers) {
+
+            if (modifier.property() != property)
+                continue;
+
+            switch (modifier.operation()) {
+                case ADD -> added += modifier.value();
+                case MULTIPLY -> multiplier *= modifier.value();
+                case SET -> override = modifier.value();
+            }
+        }
+
+        if (Objects.nonNull(override))
+            return override;
+
+        return (base + added) * multiplier;
+    }
+
+    private static class PlayerStack {
+
+        private final Map<String, List<Modifier>> sources = new LinkedHashMap<>();
+
+        private PlayerHandle handle;
+
+        private boolean dirty = false;
+        private boolean flushScheduled = false;
+
+        /**
+         * Set when a source is removed or the player joins a world; forces the flight state out.
+         */
+        private boolean resync = false;
+        private Boolean lastCanFly = null;
+
+        private volatile long lastFlushTick = -1;
+
+    }
+}
@@ -0,0 +1,167 @@
+package com.fractalgs.utils;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.fractalgs.utils.api.TickExecutor;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Lightweight reference to a player for scheduled callbacks and long-lived maps.
+ * <p>
+ * Holds the entity {@link Ref} and the world it lives in instead of the {@link Player} component,
+ * and resolves components through the world's store on demand. Once the ref has been seen invalid,
+ * or the world has stopped, the handle stays invalid: every later lookup returns {@code null} after
+ * a single field read, without touching the store or throwing.
+ * <p>
+ * The load simulator subclasses it for players without an entity: a stand-in has no ref or world,
+ * only a {@link TickExecutor}, and overrides the validity, inventory and position lookups the
+ * managers go through. Component lookups on a stand-in return {@code null}.
+ */
+public class PlayerHandle {
+
+    private final UUID uuid;
+
+    private final Ref<EntityStore> ref;
+
+    private final World world;
+
+    private final TickExecutor executor;
+
+    private volatile boolean stale = false;
+
+    private PlayerHandle(UUID uuid, Ref<EntityStore> ref, World world) {
+
+        this.uuid = uuid;
+        this.ref = ref;
+        this.world = world;
+        this.executor = TickExecutor.of(world);
+
+    }
+
+    /**
+     * Creates a stand-in for a player of {@code executor}; subclasses supply its state.
+     */
+    protected PlayerHandle(UUID uuid, TickExecutor executor) {
+
+        this.uuid = uuid;
+        this.ref = null;
+        this.world = null;
+        this.executor = executor;
+
+    }
+
+    /**
+     * Returns a handle for {@code player}, or {@code null} if it isn't in a world yet.
+     */
+    public static PlayerHandle of(Player player) {
+
+        Ref<EntityStore> ref = player.getReference();
+        World world = player.getWorld();
+
+        if (Objects.isNull(ref)
+                || Objects.isNull(world))
+            return null;
+
+        return new PlayerHandle(player.getUuid(), ref, world);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Returns the player's world, or {@code null} for a stand-in.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    public TickExecutor getExecutor() {
+        return executor;
+    }
+
+    public Ref<EntityStore> getRef() {
+        return ref;
+    }
+
+    public boolean isValid() {
+
+        if (stale)
+            return false;
+
+        if (Objects.nonNull(ref)
+                && ref.isValid()
+                && world.isAlive())
+            return true;
+
+        stale = true;
+
+        return false;
+    }
+
+    public <T extends Component<EntityStore>> T get(ComponentType<EntityStore, T> type) {
+
+        if (Objects.isNull(world)
+                || !isValid())
+            return null;
+
+        return world.getEntityStore().getStore().getComponent(ref, type);
+    }
+
+    /**
+     * Returns the {@link Player} component, or {@code null} if the player is gone or a stand-in.
+     */
+    public Player getPlayer() {
+        return get(Player.getComponentType());
+    }
+
+    public Inventory getInventory() {
+
+        Player player = getPlayer();
+
+        return Objects.nonNull(player)
+                ? player.getInventory()
+                : null;
+    }
+
+    /**
+     * Sends the player's inventory to its client after a change made through {@link #getInventory}.
+     */
+    public void sendInventory() {
+
+        Player player = getPlayer();
+
+        if (Objects.nonNull(player))
+            player.sendInventory();
+    }
+
+    /**
+     * Returns the player's position, or {@code null} if it can't be read.
+     */
+    public Vector3d getPosition() {
+
+        try {
+
+            TransformComponent transform = get(TransformComponent.getComponentType());
+
+            if (Objects.isNull(transform))
+                return null;
+
+            return transform.getPosition();
+
+        } catch (Exception e) {
+
+            return null;
+
+        }
+    }
+}
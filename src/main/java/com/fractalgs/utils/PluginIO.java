@@ -0,0 +1,299 @@
+package com.fractalgs.utils;
+
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Plugin-wide executor for disk work, backed by virtual threads.
+ * <p>
+ * Tasks are grouped into lanes by key, normally the file they touch. A lane runs its tasks one at a
+ * time in submission order, while different lanes run concurrently, so two saves of the same file
+ * can never interleave. At most {@link #MAX_QUEUED} tasks may be waiting across all lanes:
+ * {@link #trySubmit} refuses new work past that, so world-thread callers never block and simply
+ * keep their data dirty for the next attempt, while {@link #submit} waits for room and is meant
+ * for callers that are allowed to block.
+ * <p>
+ * Periodic jobs such as autosaves are sleeping virtual threads, so they don't hold a platform
+ * thread between runs, and the bookkeeping uses a {@code ReentrantLock} rather than monitors so a
+ * lane never pins its carrier while waiting. {@link #shutdown} stops the periodic jobs, refuses new work and waits up to
+ * a deadline for the queued tasks to finish; {@link #start} opens the executor again when the
+ * plugin is set up after a reload, since the static state outlives the plugin instance.
+ */
+public class PluginIO {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAX_QUEUED = 256;
+
+    public interface IOTask {
+        void run() throws Exception;
+    }
+
+    private static final Semaphore capacity = new Semaphore(MAX_QUEUED);
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition idle = lock.newCondition();
+
+    private static final Map<String, Lane> lanes = new HashMap<>();
+
+    private static final List<Thread> periodic = new CopyOnWriteArrayList<>();
+
+    private static final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Bumped by {@link #start}, so a periodic job left over from before a reload stops even if it
+     * missed the shutdown.
+     */
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private static final ThreadFactory threads = Thread.ofVirtual().name("PluginIO-", 0).factory();
+
+    private static int running = 0;
+
+    static {
+
+        PluginMetrics.gauge("io.queued", () -> MAX_QUEUED - capacity.availablePermits());
+
+    }
+
+    /**
+     * Accepts work again after a {@link #shutdown}. Called at plugin setup.
+     */
+    public static void start() {
+
+        generation.incrementAndGet();
+
+        closed.set(false);
+
+    }
+
+    /**
+     * Queues {@code task} on {@code key}'s lane, or returns {@code null} without queueing it if the
+     * executor is full or shutting down. Never blocks.
+     */
+    public static CompletableFuture<Void> trySubmit(String key, IOTask task) {
+
+        if (closed.get()
+                || !capacity.tryAcquire()) {
+
+            PluginMetrics.IO_REJECTED.increment();
+
+            return null;
+        }
+
+        return enqueue(key, task);
+    }
+
+    /**
+     * Queues {@code task} on {@code key}'s lane, waiting up to {@code timeoutMillis} for room.
+     * Returns {@code null} if there was no room in time or the executor is shutting down.
+     */
+    public static CompletableFuture<Void> submit(String key, IOTask task, long timeoutMillis) throws InterruptedException {
+
+        if (closed.get()
+                || !capacity.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+
+            PluginMetrics.IO_REJECTED.increment();
+
+            return null;
+        }
+
+        return enqueue(key, task);
+    }
+
+    /**
+     * Runs {@code task} on a virtual thread every {@code periodMillis} until shutdown, going through
+     * {@code key}'s lane like any other task. A run that finds the executor full is skipped.
+     */
+    public static void schedule(String key, long periodMillis, IOTask task) {
+
+        if (closed.get())
+            return;
+
+        int started = generation.get();
+
+        Thread thread = threads.newThread(() -> {
+
+            while (!closed.get()
+                    && generation.get() == started) {
+
+                try {
+
+                    Thread.sleep(periodMillis);
+
+                } catch (InterruptedException e) {
+
+                    return;
+
+                }
+
+                trySubmit(key, task);
+            }
+        });
+
+        periodic.add(thread);
+
+        thread.start();
+    }
+
+    /**
+     * Stops the periodic jobs and refuses new work, then waits until every queued task has run or
+     * {@code deadlineMillis} has passed. Returns {@code true} if everything finished in time.
+     */
+    public static boolean shutdown(long deadlineMillis) {
+
+        closed.set(true);
+
+        for (Thread thread : periodic)
+            thread.interrupt();
+
+        periodic.clear();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+
+        lock.lock();
+
+        try {
+
+            while (running > 0) {
+
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+
+                    LOGGER.at(Level.WARNING).log("Gave up waiting for " + running + " I/O lane(s) at shutdown: " + lanes.keySet());
+
+                    return false;
+                }
+
+                try {
+
+                    idle.awaitNanos(remaining);
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+
+                    return false;
+                }
+            }
+
+        } finally {
+
+            lock.unlock();
+
+        }
+
+        return true;
+    }
+
+    private static CompletableFuture<Void> enqueue(String key, IOTask task) {
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending pending = new Pending(task, future);
+
+        lock.lock();
+
+        try {
+
+            Lane lane = lanes.get(key);
+
+            if (Objects.nonNull(lane)) {
+
+                lane.queue.add(pending);
+
+                return future;
+            }
+
+            lane = new Lane();
+            lane.queue.add(pending);
+
+            lanes.put(key, lane);
+
+            running++;
+
+            Lane started = lane;
+
+            threads.newThread(() -> drain(key, started)).start();
+
+        } finally {
+
+            lock.unlock();
+
+        }
+
+        return future;
+    }
+
+    private static void drain(String key, Lane lane) {
+
+        while (true) {
+
+            Pending pending;
+
+            lock.lock();
+
+            try {
+
+                pending = lane.queue.poll();
+
+                if (Objects.isNull(pending)) {
+
+                    lanes.remove(key);
+
+                    running--;
+
+                    idle.signalAll();
+
+                    return;
+                }
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+            capacity.release();
+
+            long start = System.nanoTime();
+
+            try {
+
+                pending.task().run();
+
+                pending.future().complete(null);
+
+            } catch (Throwable t) {
+
+                PluginMetrics.IO_FAILURES.increment();
+
+                ErrorSink.report("PluginIO." + key, t);
+
+                pending.future().completeExceptionally(t);
+
+            } finally {
+
+                PluginMetrics.IO_TASK.record(System.nanoTime() - start);
+
+            }
+        }
+    }
+
+    private record Pending(IOTask task, CompletableFuture<Void> future) {}
+
+    private static class Lane {
+
+        private final Deque<Pending> queue = new ArrayDeque<>();
+
+    }
+}
@@ -0,0 +1,90 @@
+package com.fractalgs.utils;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Operator settings, read once at setup from {@code fractal_tech.properties} next to the plugin's
+ * other data files. A {@code -Dfractal.<key>} system property overrides the file, and a missing
+ * file or key falls back to the default passed in.
+ * <p>
+ * Keys:
+ * <ul>
+ *     <li>{@code ore.deferred}: place ores from a per-tick budget on the world thread (false)</li>
+ *     <li>{@code ore.deferred.budget.micros}: that budget per world and tick (500)</li>
+ *     <li>{@code ore.store}: {@code file}, {@code locked} or {@code memory} (file)</li>
+ *     <li>{@code watchdog.budget.ms}: time a guarded callback may take before it is reported (10)</li>
+ * </ul>
+ */
+public class PluginSettings {
+
+    private static final Path SETTINGS_FILE = Path.of("fractal_tech.properties");
+
+    private static final String SYSTEM_PREFIX = "fractal.";
+
+    private static volatile Properties properties = new Properties();
+
+    public static void load() {
+
+        Properties loaded = new Properties();
+
+        if (Files.exists(SETTINGS_FILE)) {
+
+            try (BufferedReader reader = Files.newBufferedReader(SETTINGS_FILE)) {
+
+                loaded.load(reader);
+
+            } catch (Exception e) {
+
+                ErrorSink.report("PluginSettings.load", e);
+
+            }
+        }
+
+        properties = loaded;
+    }
+
+    public static String getString(String key, String defaultValue) {
+
+        String value = System.getProperty(SYSTEM_PREFIX + key);
+
+        if (Objects.isNull(value))
+            value = properties.getProperty(key);
+
+        return Objects.nonNull(value)
+                ? value.trim()
+                : defaultValue;
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+
+        String value = getString(key, null);
+
+        return Objects.nonNull(value)
+                ? Boolean.parseBoolean(value)
+                : defaultValue;
+    }
+
+    public static long getLong(String key, long defaultValue) {
+
+        String value = getString(key, null);
+
+        if (Objects.isNull(value))
+            return defaultValue;
+
+        try {
+
+            return Long.parseLong(value);
+
+        } catch (NumberFormatException e) {
+
+            ErrorSink.report("PluginSettings." + key, e);
+
+            return defaultValue;
+
+        }
+    }
+}
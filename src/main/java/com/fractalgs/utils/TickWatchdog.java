@@ -0,0 +1,297 @@
+package com.fractalgs.utils;
+
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Timing guard for plugin callbacks that run on world threads.
+ * <p>
+ * A guarded callback costs two {@code nanoTime} calls and two field writes. A daemon sampler checks
+ * the running callbacks every half budget and grabs the stack of any that is over budget while it
+ * is still running, so the report shows where the time went rather than where it ended. Slow
+ * callbacks are kept in a small ring for {@code /fractal slow} and logged at most once per owner
+ * every {@link #WARN_INTERVAL_NANOS}.
+ * <p>
+ * The budget is the {@code watchdog.budget.ms} {@link PluginSettings} key, applied by
+ * {@link #configure} once the settings are loaded; until then it is 10 ms.
+ */
+public class TickWatchdog {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long DEFAULT_BUDGET_MILLIS = 10L;
+
+    private static volatile long budgetNanos = DEFAULT_BUDGET_MILLIS * 1_000_000L;
+
+    private static final long WARN_INTERVAL_NANOS = 30_000_000_000L;
+
+    private static final int RECENT_CAPACITY = 32;
+
+    private static final int STACK_DEPTH = 12;
+
+    public record SlowCallback(String owner, long durationNanos, long timestampMillis, String threadName, StackTraceElement[] stack) {}
+
+    /**
+     * Slots of the threads that have entered a guarded section. Slots only hold their thread
+     * weakly, and the sampler drops those whose thread has died or been collected, so pooled and
+     * virtual threads don't accumulate here.
+     */
+    private static final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+
+    private static final ThreadLocal<Slot> currentSlot = ThreadLocal.withInitial(() -> {
+
+        Slot slot = new Slot(Thread.currentThread());
+
+        slots.add(slot);
+
+        return slot;
+    });
+
+    private static final Deque<SlowCallback> recent = new ArrayDeque<>();
+
+    private static final Map<String, long[]> warnState = new ConcurrentHashMap<>();
+
+    static {
+
+        Thread sampler = new Thread(TickWatchdog::sampleLoop, "TickWatchdog-Sampler");
+
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Applies {@code watchdog.budget.ms}; called at setup after {@link PluginSettings#load}.
+     */
+    public static void configure() {
+
+        budgetNanos = Math.max(1L, PluginSettings.getLong("watchdog.budget.ms", DEFAULT_BUDGET_MILLIS)) * 1_000_000L;
+
+    }
+
+    public static <E> Consumer<E> guard(String owner, Consumer<E> handler) {
+
+        return event -> {
+
+            long start = enter();
+
+            try {
+
+                handler.accept(event);
+
+            } finally {
+
+                exit(owner, start);
+
+            }
+        };
+    }
+
+    public static Runnable guard(Object owner, Runnable task) {
+
+        return () -> {
+
+            long start = enter();
+
+            try {
+
+                task.run();
+
+            } finally {
+
+                exit(owner, start);
+
+            }
+        };
+    }
+
+    /**
+     * Marks the start of a guarded section and returns its start time. Nested sections are only
+     * sampled as part of the outermost one.
+     */
+    public static long enter() {
+
+        Slot slot = currentSlot.get();
+
+        long start = System.nanoTime();
+
+        if (slot.depth++ == 0)
+            slot.startNanos = start;
+
+        return start;
+    }
+
+    /**
+     * Ends a guarded section and returns its duration. Only the outermost section is reported when
+     * over budget, and {@code owner} is only turned into a name then.
+     */
+    public static long exit(Object owner, long start) {
+
+        long elapsed = System.nanoTime() - start;
+
+        Slot slot = currentSlot.get();
+
+        boolean outermost = --slot.depth == 0;
+
+        if (outermost)
+            slot.startNanos = 0L;
+
+        // A nested section's time is part of the outermost one, which reports the stall once.
+        if (outermost
+                && elapsed > budgetNanos) {
+
+            StackTraceElement[] stack = slot.sampledFor == start
+                    ? slot.sample
+                    : null;
+
+            report(ownerName(owner), elapsed, stack);
+        }
+
+        return elapsed;
+    }
+
+    public static List<SlowCallback> getRecent() {
+
+        synchronized (recent) {
+
+            return new ArrayList<>(recent);
+
+        }
+    }
+
+    private static void report(String owner, long elapsed, StackTraceElement[] stack) {
+
+        PluginMetrics.counter("watchdog.slow." + owner).increment();
+
+        SlowCallback slow = new SlowCallback(owner, elapsed, System.currentTimeMillis(),
+                Thread.currentThread().getName(), stack);
+
+        synchronized (recent) {
+
+            if (recent.size() >= RECENT_CAPACITY)
+                recent.removeFirst();
+
+            recent.addLast(slow);
+        }
+
+        long[] state = warnState.computeIfAbsent(owner, k -> new long[]{Long.MIN_VALUE, 0L});
+
+        synchronized (state) {
+
+            long now = System.nanoTime();
+
+            if (state[0] != Long.MIN_VALUE
+                    && now - state[0] < WARN_INTERVAL_NANOS) {
+
+                state[1]++;
+
+                return;
+            }
+
+            LOGGER.at(Level.WARNING).log(String.format("%s took %.1f ms on %s (budget %d ms, %d more slow calls suppressed)%s",
+                    owner, elapsed / 1_000_000.0, slow.threadName(), budgetNanos / 1_000_000L, state[1], formatStack(stack)));
+
+            state[0] = now;
+            state[1] = 0L;
+        }
+    }
+
+    private static void sampleLoop() {
+
+        while (true) {
+
+            long budget = budgetNanos;
+
+            try {
+
+                Thread.sleep(Math.max(1L, budget / 2_000_000L));
+
+            } catch (InterruptedException e) {
+
+                return;
+
+            }
+
+            long now = System.nanoTime();
+
+            Iterator<Slot> it = slots.iterator();
+
+            while (it.hasNext()) {
+
+                Slot slot = it.next();
+
+                Thread thread = slot.thread.get();
+
+                if (Objects.isNull(thread)
+                        || !thread.isAlive()) {
+
+                    it.remove();
+
+                    continue;
+                }
+
+                long start = slot.startNanos;
+
+                if (start == 0L
+                        || slot.sampledFor == start
+                        || now - start <= budget)
+                    continue;
+
+                StackTraceElement[] stack = thread.getStackTrace();
+
+                slot.sample = Arrays.copyOf(stack, Math.min(stack.length, STACK_DEPTH));
+                slot.sampledFor = start;
+            }
+        }
+    }
+
+    private static String ownerName(Object owner) {
+
+        if (owner instanceof String name)
+            return name;
+
+        String className = owner.getClass().getName();
+
+        int lambda = className.indexOf("$$");
+
+        if (lambda >= 0)
+            className = className.substring(0, lambda);
+
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String formatStack(StackTraceElement[] stack) {
+
+        if (Objects.isNull(stack))
+            return "";
+
+        StringBuilder builder = new StringBuilder();
+
+        for (StackTraceElement element : stack)
+            builder.append("\n    at ").append(element);
+
+        return builder.toString();
+    }
+
+    private static class Slot {
+
+        private final WeakReference<Thread> thread;
+
+        private int depth = 0;
+
+        private volatile long startNanos = 0L;
+
+        private volatile long sampledFor = 0L;
+
+        private volatile StackTraceElement[] sample;
+
+        private Slot(Thread thread) {
+            this.thread = new WeakReference<>(thread);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.fractalgs.utils.api;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.api.SafeLandingSearch.Landing;
+import com.fractalgs.utils.jfr.TeleportSearchEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Safe-landing search over chunks that may not be loaded yet.
+ * <p>
+ * A handful of candidate chunks are requested through the world's async chunk loading, and each
+ * one is scanned on the world thread as soon as it arrives. The first safe spot wins; if none of
+ * the candidates has one, {@code onFailed} runs instead. The number of searches waiting on chunk
+ * I/O is capped server-wide.
+ * <p>
+ * Every candidate is accounted for exactly once however it ends: a chunk that fails to load, takes
+ * longer than {@link #CHUNK_TIMEOUT_MILLIS}, or whose scan throws still counts down, so a search
+ * always finishes and always gives back its in-flight slot.
+ */
+public class AsyncLandingSearch {
+
+    private static final int CANDIDATE_CHUNKS = 4;
+    private static final int COLUMNS_PER_CHUNK = 16;
+
+    private static final int MAX_IN_FLIGHT = 8;
+
+    private static final long CHUNK_TIMEOUT_MILLIS = 5_000L;
+
+    private static final int CHUNK_SIZE = 32;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Starts a search and returns {@code true}, or returns {@code false} straight away if too many
+     * searches are already waiting on chunk loads. Both callbacks run on the world thread; if the
+     * world stops first, neither runs.
+     */
+    public static boolean start(World world, int baseX, int baseY, int baseZ, int radius,
+                                Consumer<Landing> onFound, Runnable onFailed) {
+
+        TeleportSearchEvent jfr = TeleportSearchEvent.start("async");
+
+        if (inFlight.incrementAndGet() > MAX_IN_FLIGHT) {
+
+            inFlight.decrementAndGet();
+
+            TeleportSearchEvent.finish(jfr, TeleportSearchEvent.BUSY);
+
+            return false;
+        }
+
+        Search search = new Search(baseY, jfr, onFound, onFailed);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < CANDIDATE_CHUNKS; i++) {
+
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(
+                    baseX + random.nextInt(-radius, radius + 1),
+                    baseZ + random.nextInt(-radius, radius + 1));
+
+            try {
+
+                world.getChunkAsync(chunkIndex)
+                        .orTimeout(CHUNK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                        .whenComplete((chunk, error) -> {
+
+                            if (!world.isAlive()) {
+
+                                search.abandon();
+
+                                return;
+                            }
+
+                            WorldHelper.executeOnWorldThread(world, () -> search.arrive(Objects.isNull(error) ? chunk : null));
+                        });
+
+            } catch (Exception e) {
+
+                ErrorSink.report("AsyncLandingSearch.start", e);
+
+                search.arrive(null);
+
+            }
+        }
+
+        // A candidate handed to a world that stops before running it would never count down.
+        CompletableFuture.delayedExecutor(CHUNK_TIMEOUT_MILLIS * 2, TimeUnit.MILLISECONDS).execute(() -> {
+
+            if (!world.isAlive())
+                search.abandon();
+
+        });
+
+        return true;
+    }
+
+    /**
+     * State shared by the candidates of one search.
+     */
+    private static class Search {
+
+        private final int baseY;
+
+        private final TeleportSearchEvent jfr;
+
+        private final Consumer<Landing> onFound;
+        private final Runnable onFailed;
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final AtomicInteger pending = new AtomicInteger(CANDIDATE_CHUNKS);
+
+        private Search(int baseY, TeleportSearchEvent jfr, Consumer<Landing> onFound, Runnable onFailed) {
+
+            this.baseY = baseY;
+            this.jfr = jfr;
+            this.onFound = onFound;
+            this.onFailed = onFailed;
+
+        }
+
+        /**
+         * One candidate's outcome, {@code null} if it didn't load. Runs on the world thread, except
+         * for candidates that failed before being requested.
+         */
+        private void arrive(WorldChunk chunk) {
+
+            try {
+
+                if (finished.get()
+                        || Objects.isNull(chunk))
+                    return;
+
+                long start = System.nanoTime();
+
+                Landing landing = scanChunk(chunk, baseY, jfr);
+
+                PluginMetrics.TELEPORT_SEARCH_ASYNC.record(System.nanoTime() - start);
+
+                if (Objects.nonNull(landing)
+                        && finished.compareAndSet(false, true)) {
+
+                    inFlight.decrementAndGet();
+
+                    TeleportSearchEvent.finish(jfr, TeleportSearchEvent.FOUND);
+
+                    onFound.accept(landing);
+
+                }
+
+            } catch (Exception e) {
+
+                ErrorSink.report("AsyncLandingSearch.scan", e);
+
+            } finally {
+
+                if (pending.decrementAndGet() == 0
+                        && finished.compareAndSet(false, true)) {
+
+                    inFlight.decrementAndGet();
+
+                    TeleportSearchEvent.finish(jfr, TeleportSearchEvent.FAILED);
+
+                    onFailed.run();
+
+                }
+            }
+        }
+
+        /**
+         * The world stopped while a candidate was loading: give back the slot without callbacks.
+         */
+        private void abandon() {
+
+            if (finished.compareAndSet(false, true)) {
+
+                inFlight.decrementAndGet();
+
+                TeleportSearchEvent.finish(jfr, TeleportSearchEvent.FAILED);
+
+            }
+        }
+    }
+
+    private static Landing scanChunk(WorldChunk chunk, int baseY, TeleportSearchEvent jfr) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < COLUMNS_PER_CHUNK; i++) {
+
+            int localX = random.nextInt(CHUNK_SIZE);
+            int localZ = random.nextInt(CHUNK_SIZE);
+
+            TeleportSearchEvent.tried(jfr);
+
+            Integer safeY = SafeLandingSearch.findSafeCoordY(chunk, localX, localZ, baseY + 64, baseY - 128, jfr);
+
+            if (Objects.nonNull(safeY))
+                return new Landing(chunk.getX() * CHUNK_SIZE + localX, safeY, chunk.getZ() * CHUNK_SIZE + localZ);
+        }
+
+        return null;
+    }
+}
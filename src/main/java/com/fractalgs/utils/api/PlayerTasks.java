@@ -0,0 +1,201 @@
+package com.fractalgs.utils.api;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link WorldHelper#waitTicks} callbacks owned by a player.
+ * <p>
+ * Every pending callback is remembered under its owner until it runs, so {@link #cancelAll} can
+ * drop all of them when the player leaves. The cancelled callbacks, and the {@code Player} objects
+ * they captured, become unreachable straight away instead of lingering until the next tick they
+ * would have fired on.
+ * <p>
+ * {@link #cancelAll} releases the owner for good. A callback of a released owner that was already
+ * on its way to the world thread doesn't run, one that is running when the owner is released can't
+ * schedule another, and a {@code waitTicks} call that raced the release is refused. An owner whose
+ * callbacks have all run is forgotten, so the table only holds players with work pending.
+ */
+public class PlayerTasks {
+
+    private static final Map<UUID, Owner> owners = new ConcurrentHashMap<>();
+
+    /**
+     * The owner whose callback is running on this thread.
+     */
+    private static final ThreadLocal<Owner> running = new ThreadLocal<>();
+
+    public static ScheduledTask waitTicks(UUID owner, World world, int ticks, Runnable callback) {
+        return waitTicks(owner, TickExecutor.of(world), ticks, callback);
+    }
+
+    /**
+     * Schedules {@code callback} for {@code owner}. Returns {@link ScheduledTask#DONE} without
+     * scheduling anything if the owner was released while this call, or the callback making it,
+     * was in flight.
+     */
+    public static ScheduledTask waitTicks(UUID owner, TickExecutor world, int ticks, Runnable callback) {
+
+        Owner caller = running.get();
+
+        if (Objects.nonNull(caller)
+                && caller.released
+                && caller.uuid.equals(owner))
+            return ScheduledTask.DONE;
+
+        while (true) {
+
+            Owner entry = owners.computeIfAbsent(owner, Owner::new);
+
+            synchronized (entry) {
+
+                if (entry.released)
+                    return ScheduledTask.DONE;
+
+                if (entry.retired)
+                    continue;
+
+                Task task = new Task(entry, callback);
+
+                entry.tasks.add(task);
+
+                task.scheduled = WorldHelper.waitTicks(world, ticks, task);
+
+                return task;
+            }
+        }
+    }
+
+    /**
+     * Cancels every callback {@code owner} still has pending and releases the owner.
+     */
+    public static int cancelAll(UUID owner) {
+
+        Owner entry = owners.remove(owner);
+
+        if (Objects.isNull(entry))
+            return 0;
+
+        List<Task> tasks;
+
+        synchronized (entry) {
+
+            entry.released = true;
+
+            tasks = new ArrayList<>(entry.tasks);
+
+            entry.tasks.clear();
+        }
+
+        int cancelled = 0;
+
+        for (Task task : tasks)
+            if (task.scheduled.cancel())
+                cancelled++;
+
+        return cancelled;
+    }
+
+    public static int getPendingOwners() {
+        return owners.size();
+    }
+
+    /**
+     * A player's pending callbacks. Released by {@link #cancelAll}; retired once idle. Either way
+     * it has left {@link #owners} and takes no more callbacks.
+     */
+    private static class Owner {
+
+        private final UUID uuid;
+
+        private final Set<Task> tasks = new HashSet<>();
+
+        private volatile boolean released = false;
+
+        private boolean retired = false;
+
+        private Owner(UUID uuid) {
+            this.uuid = uuid;
+        }
+
+        private synchronized void retireIfIdle() {
+
+            if (released
+                    || retired
+                    || !tasks.isEmpty())
+                return;
+
+            retired = true;
+
+            owners.remove(uuid, this);
+        }
+    }
+
+    private static class Task implements ScheduledTask, Runnable {
+
+        private final Owner owner;
+
+        private final Runnable callback;
+
+        private ScheduledTask scheduled;
+
+        private Task(Owner owner, Runnable callback) {
+
+            this.owner = owner;
+            this.callback = callback;
+
+        }
+
+        @Override
+        public void run() {
+
+            synchronized (owner) {
+
+                if (owner.released)
+                    return;
+
+                owner.tasks.remove(this);
+            }
+
+            Owner previous = running.get();
+
+            running.set(owner);
+
+            try {
+
+                callback.run();
+
+            } finally {
+
+                running.set(previous);
+
+                owner.retireIfIdle();
+
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+
+            synchronized (owner) {
+
+                owner.tasks.remove(this);
+
+            }
+
+            boolean cancelled = scheduled.cancel();
+
+            owner.retireIfIdle();
+
+            return cancelled;
+        }
+    }
+}
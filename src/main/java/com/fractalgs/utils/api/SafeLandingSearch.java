@@ -0,0 +1,206 @@
+package com.fractalgs.utils.api;
+
+import com.fractalgs.utils.jfr.TeleportSearchEvent;
+import com.fractalgs.utils.metrics.PluginMetrics;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Random safe-landing search spread across world ticks.
+ * <p>
+ * Each tick the search tries random columns until it runs out of its time budget and then yields
+ * to the next tick, so a single search can never stall the world thread. Columns are scanned from
+ * the chunk heightmap downwards with a sliding three-block window, which costs one block read per
+ * level instead of three.
+ */
+public class SafeLandingSearch {
+
+    public record Landing(int x, int y, int z) {}
+
+    private static final long TICK_BUDGET_NANOS = 250_000L;
+
+    private static final int CHUNK_MASK = 31;
+
+    public static final int MIN_Y = 1;
+    public static final int MAX_Y = 255;
+
+    private final World world;
+
+    private final int baseX;
+    private final int baseY;
+    private final int baseZ;
+    private final int radius;
+
+    private final Consumer<Landing> onFound;
+    private final Runnable onFailed;
+
+    private final TeleportSearchEvent jfr = TeleportSearchEvent.start("column");
+
+    private int triesLeft;
+
+    private SafeLandingSearch(World world, int baseX, int baseY, int baseZ, int radius, int tries,
+                              Consumer<Landing> onFound, Runnable onFailed) {
+
+        this.world = world;
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.baseZ = baseZ;
+        this.radius = radius;
+        this.triesLeft = tries;
+        this.onFound = onFound;
+        this.onFailed = onFailed;
+
+    }
+
+    /**
+     * Starts a search. Exactly one of the callbacks runs, on the world thread, unless the world
+     * shuts down first.
+     */
+    public static void start(World world, int baseX, int baseY, int baseZ, int radius, int tries,
+                             Consumer<Landing> onFound, Runnable onFailed) {
+
+        SafeLandingSearch search = new SafeLandingSearch(world, baseX, baseY, baseZ, radius, tries, onFound, onFailed);
+
+        WorldHelper.executeOnWorldThread(world, search::step);
+    }
+
+    private void step() {
+
+        long start = System.nanoTime();
+
+        try {
+
+            search(start + TICK_BUDGET_NANOS);
+
+        } finally {
+
+            PluginMetrics.TELEPORT_SEARCH_COLUMN.record(System.nanoTime() - start);
+
+        }
+    }
+
+    private void search(long deadline) {
+
+        while (triesLeft > 0) {
+
+            triesLeft--;
+
+            TeleportSearchEvent.tried(jfr);
+
+            int x = baseX + ThreadLocalRandom.current().nextInt(-radius, radius + 1);
+            int z = baseZ + ThreadLocalRandom.current().nextInt(-radius, radius + 1);
+
+            Integer safeY = findSafeCoordY(world, x, baseY, z, jfr);
+
+            if (Objects.nonNull(safeY)) {
+
+                TeleportSearchEvent.finish(jfr, TeleportSearchEvent.FOUND);
+
+                onFound.accept(new Landing(x, safeY, z));
+
+                return;
+            }
+
+            if (System.nanoTime() >= deadline)
+                break;
+        }
+
+        if (triesLeft > 0
+                && world.isAlive()) {
+
+            WorldHelper.waitTicks(world, 1, this::step);
+
+        } else {
+
+            PluginMetrics.TELEPORT_SEARCHES_FAILED.increment();
+
+            TeleportSearchEvent.finish(jfr, TeleportSearchEvent.FAILED);
+
+            onFailed.run();
+
+        }
+    }
+
+    /**
+     * Returns the highest standable y in the column within [y - 128, y + 64], or {@code null} if
+     * there is none or the chunk isn't loaded.
+     */
+    public static Integer findSafeCoordY(World world, int x, int y, int z) {
+        return findSafeCoordY(world, x, y, z, null);
+    }
+
+    private static Integer findSafeCoordY(World world, int x, int y, int z, TeleportSearchEvent stats) {
+
+        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
+
+        if (Objects.isNull(chunk))
+            return null;
+
+        return findSafeCoordY(chunk, x & CHUNK_MASK, z & CHUNK_MASK, y + 64, y - 128, stats);
+    }
+
+    /**
+     * Scans one column of a loaded chunk from {@code fromY} down to {@code toY}. Everything above
+     * the heightmap is air, so the scan starts right on top of the surface.
+     */
+    public static Integer findSafeCoordY(WorldChunk chunk, int localX, int localZ, int fromY, int toY) {
+        return findSafeCoordY(chunk, localX, localZ, fromY, toY, null);
+    }
+
+    /**
+     * As above, adding the blocks read to {@code stats} when it isn't {@code null}.
+     */
+    public static Integer findSafeCoordY(WorldChunk chunk, int localX, int localZ, int fromY, int toY, TeleportSearchEvent stats) {
+
+        int start = clamp(fromY, MIN_Y + 2, MAX_Y - 2);
+        int end = clamp(toY, MIN_Y + 2, MAX_Y - 2);
+
+        start = Math.min(start, Math.max(chunk.getHeight(localX, localZ) + 1, end));
+
+        int head = chunk.getBlock(localX, start + 1, localZ);
+        int body = chunk.getBlock(localX, start, localZ);
+
+        Integer found = null;
+
+        int reads = 2;
+
+        for (int coordY = start; coordY >= end; coordY--) {
+
+            int below = chunk.getBlock(localX, coordY - 1, localZ);
+
+            reads++;
+
+            if (below == BlockType.UNKNOWN_ID
+                    || body == BlockType.UNKNOWN_ID
+                    || head == BlockType.UNKNOWN_ID)
+                break;
+
+            if (below != BlockType.EMPTY_ID
+                    && body == BlockType.EMPTY_ID
+                    && head == BlockType.EMPTY_ID) {
+
+                found = coordY;
+
+                break;
+            }
+
+            head = body;
+            body = below;
+        }
+
+        if (Objects.nonNull(stats))
+            stats.blockReads += reads;
+
+        return found;
+    }
+
+    private static int clamp(int input, int lowerBound, int upperBound) {
+        return Math.max(lowerBound, Math.min(upperBound, input));
+    }
+}
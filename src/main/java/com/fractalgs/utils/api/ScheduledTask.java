@@ -0,0 +1,16 @@
+package com.fractalgs.utils.api;
+
+/**
+ * Handle to a callback scheduled with {@link WorldHelper#waitTicks}.
+ */
+public interface ScheduledTask {
+
+    ScheduledTask DONE = () -> false;
+
+    /**
+     * Stops the callback from running if it hasn't been handed to the world yet and drops the
+     * reference to it. Returns {@code true} if this call cancelled it.
+     */
+    boolean cancel();
+
+}
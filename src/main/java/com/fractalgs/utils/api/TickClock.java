@@ -0,0 +1,125 @@
+package com.fractalgs.utils.api;
+
+import com.fractalgs.utils.ErrorSink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backs {@link TickExecutor#executeAt} for worlds without a tick hook of their own.
+ * <p>
+ * One daemon thread polls once per server tick. Each world with waiting tasks keeps them in a
+ * min-heap by target tick, so a poll reads every such world's tick counter once and only pops the
+ * tasks that are due, handing them to the world's queue. A world that has stopped drops its tasks;
+ * those that are also {@link ScheduledTask}s are cancelled so their owners can account for them.
+ */
+final class TickClock {
+
+    private static final long POLL_MILLIS = 50;
+
+    private record Waiter(long tick, long sequence, Runnable task) {}
+
+    private static final Comparator<Waiter> ORDER = Comparator.comparingLong(Waiter::tick).thenComparingLong(Waiter::sequence);
+
+    private static final Map<TickExecutor, PriorityQueue<Waiter>> waiting = new HashMap<>();
+
+    private static long sequence = 0;
+
+    private static final ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor(r -> {
+
+        Thread thread = new Thread(r, "WorldHelper-TickClock");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    static {
+
+        clock.scheduleAtFixedRate(TickClock::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+    }
+
+    private TickClock() {}
+
+    static synchronized void schedule(TickExecutor world, long tick, Runnable task) {
+
+        waiting.computeIfAbsent(world, w -> new PriorityQueue<>(ORDER)).add(new Waiter(tick, sequence++, task));
+
+    }
+
+    private static void poll() {
+
+        List<Runnable> due = new ArrayList<>();
+        List<Runnable> dropped = new ArrayList<>();
+        List<TickExecutor> targets = new ArrayList<>();
+
+        synchronized (TickClock.class) {
+
+            Iterator<Map.Entry<TickExecutor, PriorityQueue<Waiter>>> worlds = waiting.entrySet().iterator();
+
+            while (worlds.hasNext()) {
+
+                Map.Entry<TickExecutor, PriorityQueue<Waiter>> entry = worlds.next();
+
+                TickExecutor world = entry.getKey();
+                PriorityQueue<Waiter> heap = entry.getValue();
+
+                try {
+
+                    if (!world.isAlive()) {
+
+                        heap.forEach(waiter -> dropped.add(waiter.task()));
+
+                        worlds.remove();
+
+                        continue;
+                    }
+
+                    long now = world.getTick();
+
+                    while (!heap.isEmpty()
+                            && heap.peek().tick() <= now) {
+
+                        due.add(heap.poll().task());
+                        targets.add(world);
+
+                    }
+
+                } catch (Exception e) {
+
+                    ErrorSink.report("TickClock.poll", e);
+
+                }
+
+                if (heap.isEmpty())
+                    worlds.remove();
+            }
+        }
+
+        for (int i = 0; i < due.size(); i++) {
+
+            try {
+
+                targets.get(i).execute(due.get(i));
+
+            } catch (Exception e) {
+
+                ErrorSink.report("TickClock.poll", e);
+
+            }
+        }
+
+        for (Runnable task : dropped)
+            if (task instanceof ScheduledTask scheduled)
+                scheduled.cancel();
+    }
+}
@@ -0,0 +1,70 @@
+package com.fractalgs.utils.api;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * The part of a world the plugin's scheduling relies on: a tick counter and a task queue drained
+ * on the world thread. Lets the scheduling helpers, and the managers whose per-world state is
+ * keyed by it, run against something other than a live {@link World}, such as the load simulator.
+ * <p>
+ * Executors of the same live world are equal, so they can key maps.
+ */
+public interface TickExecutor {
+
+    long getTick();
+
+    void execute(Runnable task);
+
+    boolean isAlive();
+
+    int getTps();
+
+    /**
+     * Returns the live world behind this executor, or {@code null} for a stand-in.
+     */
+    default World getWorld() {
+        return null;
+    }
+
+    /**
+     * Queues {@code task} for the world thread once the tick counter reaches {@code tick}, or on
+     * the next tick if it already has. If the world stops first the task is dropped. The default
+     * waits on the shared {@link TickClock}; executors that run their own tick loop can check the
+     * deadline there instead.
+     */
+    default void executeAt(long tick, Runnable task) {
+        TickClock.schedule(this, tick, task);
+    }
+
+    static TickExecutor of(World world) {
+        return new WorldTickExecutor(world);
+    }
+
+    record WorldTickExecutor(World world) implements TickExecutor {
+
+        @Override
+        public long getTick() {
+            return world.getTick();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            world.execute(task);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return world.isAlive();
+        }
+
+        @Override
+        public int getTps() {
+            return world.getTps();
+        }
+
+        @Override
+        public World getWorld() {
+            return world;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.fractalgs.utils.api;
+
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.TickWatchdog;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Min-heap of deadlines measured in world ticks, swept by a single wakeup per world.
+ * <p>
+ * The sweeper sleeps until the earliest deadline and only pops the entries that are due, so the
+ * cost is proportional to the number of expiries rather than to the number of keys times the time
+ * they stay queued. Moving a deadline just pushes a new heap entry; the superseded one is skipped
+ * lazily when it reaches the top. Wakeups go through {@link TickExecutor#executeAt}, so they
+ * share the world's tick schedule rather than holding a thread each.
+ */
+public class TickExpiryQueue<K> {
+
+    private record Entry<K>(K key, long tick) {}
+
+    private final TickExecutor world;
+
+    private final Consumer<K> onExpire;
+
+    private final PriorityQueue<Entry<K>> heap = new PriorityQueue<>(Comparator.comparingLong(Entry::tick));
+
+    private final Map<K, Long> deadlines = new HashMap<>();
+
+    private long scheduledWakeTick = Long.MAX_VALUE;
+
+    public TickExpiryQueue(TickExecutor world, Consumer<K> onExpire) {
+
+        this.world = world;
+        this.onExpire = onExpire;
+
+    }
+
+    public synchronized void schedule(K key, long tick) {
+
+        deadlines.put(key, tick);
+
+        heap.add(new Entry<>(key, tick));
+
+        if (tick < scheduledWakeTick)
+            wakeAt(tick);
+    }
+
+    public synchronized void cancel(K key) {
+
+        deadlines.remove(key);
+
+    }
+
+    public synchronized boolean contains(K key) {
+
+        return deadlines.containsKey(key);
+
+    }
+
+    private void wakeAt(long tick) {
+
+        scheduledWakeTick = tick;
+
+        world.executeAt(tick, TickWatchdog.guard(this, () -> sweep(tick)));
+    }
+
+    private void sweep(long wakeTick) {
+
+        List<K> due = new ArrayList<>();
+
+        synchronized (this) {
+
+            if (wakeTick != scheduledWakeTick)
+                return;
+
+            scheduledWakeTick = Long.MAX_VALUE;
+
+            long now = world.getTick();
+
+            while (!heap.isEmpty()
+                    && heap.peek().tick() <= now) {
+
+                Entry<K> entry = heap.poll();
+
+                if (Objects.equals(deadlines.get(entry.key()), entry.tick())) {
+
+                    deadlines.remove(entry.key());
+
+                    due.add(entry.key());
+
+                }
+            }
+
+            while (!heap.isEmpty()
+                    && !Objects.equals(deadlines.get(heap.peek().key()), heap.peek().tick()))
+                heap.poll();
+
+            if (!heap.isEmpty())
+                wakeAt(heap.peek().tick());
+        }
+
+        for (K key : due) {
+
+            try {
+
+                onExpire.accept(key);
+
+            } catch (Exception e) {
+
+                ErrorSink.report("TickExpiryQueue.expire", e);
+
+            }
+        }
+    }
+}
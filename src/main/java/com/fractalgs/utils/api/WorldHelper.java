@@ -1,57 +1,102 @@
 package com.fractalgs.utils.api;
 
+import com.fractalgs.utils.ErrorSink;
+import com.fractalgs.utils.TickWatchdog;
 import com.hypixel.hytale.server.core.universe.world.World;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.logging.Level;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class WorldHelper {
 
+    private static final AtomicInteger pendingTasks = new AtomicInteger();
+
+    public static int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
     public static void executeOnWorldThread(World world, Runnable task) {
-        world.execute(task);
+        executeOnWorldThread(TickExecutor.of(world), task);
+    }
+
+    public static void executeOnWorldThread(TickExecutor world, Runnable task) {
+        world.execute(TickWatchdog.guard(task, task));
+    }
+
+    public static ScheduledTask waitTicks(World world, int ticks, Runnable callback) {
+        return waitTicks(TickExecutor.of(world), ticks, callback);
     }
 
-    public static void waitTicks(World world, int ticks, Runnable callback) {
+    public static ScheduledTask waitTicks(TickExecutor world, int ticks, Runnable callback) {
 
         if (ticks <= 0) {
 
             executeOnWorldThread(world, callback);
 
-            return;
+            return ScheduledTask.DONE;
+        }
+
+        pendingTasks.incrementAndGet();
+
+        WaitTask task = new WaitTask(callback);
+
+        world.executeAt(world.getTick() + ticks, task);
+
+        return task;
+    }
+
+    /**
+     * Runs on the world thread when its tick comes. Cancelling only clears the callback; the
+     * emptied task still leaves the world's schedule at its tick, which is cheap.
+     */
+    private static class WaitTask implements ScheduledTask, Runnable {
+
+        private final AtomicReference<Runnable> callback;
+
+        private WaitTask(Runnable callback) {
+
+            this.callback = new AtomicReference<>(callback);
+
         }
 
-        Timer timer = new Timer("WorldHelper-WaitTicks", true);
+        @Override
+        public void run() {
 
-        final long startTick = world.getTick();
-        final long targetTick = startTick + ticks;
-        
-        timer.scheduleAtFixedRate(new TimerTask() {
+            Runnable task = callback.getAndSet(null);
 
-            @Override
-            public void run() {
+            if (Objects.isNull(task))
+                return;
 
-                long currentTick = world.getTick();
+            pendingTasks.decrementAndGet();
 
-                if (currentTick >= targetTick) {
+            long start = TickWatchdog.enter();
 
-                    world.execute(() -> {
+            try {
 
-                        try {
+                task.run();
 
-                            callback.run();
+            } catch (Exception e) {
 
-                        } catch (Exception e) {
+                ErrorSink.report("WorldHelper.waitTicks", e);
 
-                            world.getLogger().at(Level.WARNING).log("Error in waitTicks callback: " + e.getMessage());
+            } finally {
 
-                        }
-                    });
+                TickWatchdog.exit(task, start);
 
-                    timer.cancel();
-                }
             }
-        }, 0, 50);
+        }
+
+        @Override
+        public boolean cancel() {
+
+            if (Objects.isNull(callback.getAndSet(null)))
+                return false;
+
+            pendingTasks.decrementAndGet();
+
+            return true;
+        }
     }
 
 }
@@ -0,0 +1,237 @@
+package com.fractalgs.utils.api;
+
+import com.hypixel.hytale.server.core.plugin.JavaPlugin;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One instance of some state per world.
+ * <p>
+ * Shards are keyed by the world's {@link TickExecutor}, so owners can be driven by a stand-in world;
+ * the {@link World} overloads look up the executor of a live world.
+ * <p>
+ * The world-to-shard table is an immutable map replaced on the rare world add or remove, so a
+ * lookup is a volatile read and a hash probe with no locking or shared writes. What goes inside a
+ * shard is up to the owner; state that only the world's own thread touches can use plain
+ * collections. Work that starts on another thread hands over with {@link #withShard}, which runs
+ * on the world's thread.
+ * <p>
+ * Shards are dropped when their world is removed, once {@link #register} has been called, and
+ * never created for a world that has stopped, so a late event or callback can't bring a removed
+ * world's shard back. The factory runs outside the table's lock; concurrent lookups of the same
+ * new world wait for the one creation in flight instead of blocking every other world.
+ */
+public class WorldShards<S> {
+
+    private static final List<WorldShards<?>> instances = new CopyOnWriteArrayList<>();
+
+    private final Function<TickExecutor, S> factory;
+    private final Consumer<S> onRemove;
+
+    private volatile Map<TickExecutor, S> shards = Map.of();
+
+    /**
+     * Creations in flight, guarded by {@code this}. {@link #remove} drops a world's entry so its
+     * shard is discarded instead of published when the factory returns.
+     */
+    private final Map<TickExecutor, CompletableFuture<S>> creating = new HashMap<>();
+
+    public WorldShards(Function<TickExecutor, S> factory) {
+        this(factory, shard -> {});
+    }
+
+    /**
+     * @param onRemove called with the shard of a removed world, on the thread that fired the removal
+     */
+    public WorldShards(Function<TickExecutor, S> factory, Consumer<S> onRemove) {
+
+        this.factory = factory;
+        this.onRemove = onRemove;
+
+        instances.add(this);
+    }
+
+    /**
+     * Drops the shards of every removed world, for all instances.
+     */
+    public static void register(JavaPlugin plugin) {
+
+        plugin.getEventRegistry().registerGlobal(RemoveWorldEvent.class, event -> {
+
+            for (WorldShards<?> instance : instances)
+                instance.remove(TickExecutor.of(event.getWorld()));
+
+        });
+    }
+
+    /**
+     * Returns the shard of {@code world}, creating it on first use, or {@code null} if the world has
+     * stopped or was removed meanwhile. Callbacks that may outlive the world should use
+     * {@link #find} instead.
+     */
+    public S get(World world) {
+        return get(TickExecutor.of(world));
+    }
+
+    public S get(TickExecutor world) {
+
+        S shard = shards.get(world);
+
+        if (Objects.nonNull(shard))
+            return shard;
+
+        if (!world.isAlive())
+            return null;
+
+        return create(world);
+    }
+
+    /**
+     * Returns the shard of {@code world}, or {@code null} if it has none yet.
+     */
+    public S find(World world) {
+        return find(TickExecutor.of(world));
+    }
+
+    public S find(TickExecutor world) {
+        return shards.get(world);
+    }
+
+    public Collection<S> values() {
+        return shards.values();
+    }
+
+    /**
+     * Runs {@code action} on the world thread of {@code world}'s shard, or of every shard when
+     * {@code world} is {@code null}. Worlds without a shard are skipped.
+     */
+    public void withShard(World world, Consumer<S> action) {
+        withShard(Objects.nonNull(world) ? TickExecutor.of(world) : null, action);
+    }
+
+    public void withShard(TickExecutor world, Consumer<S> action) {
+
+        Map<TickExecutor, S> current = shards;
+
+        if (Objects.nonNull(world)) {
+
+            S shard = current.get(world);
+
+            if (Objects.nonNull(shard)
+                    && world.isAlive())
+                WorldHelper.executeOnWorldThread(world, () -> action.accept(shard));
+
+            return;
+        }
+
+        for (Map.Entry<TickExecutor, S> entry : current.entrySet())
+            if (entry.getKey().isAlive())
+                WorldHelper.executeOnWorldThread(entry.getKey(), () -> action.accept(entry.getValue()));
+    }
+
+    public void remove(TickExecutor world) {
+
+        S removed;
+
+        synchronized (this) {
+
+            creating.remove(world);
+
+            removed = shards.get(world);
+
+            if (Objects.isNull(removed))
+                return;
+
+            Map<TickExecutor, S> next = new HashMap<>(shards);
+
+            next.remove(world);
+
+            shards = Map.copyOf(next);
+        }
+
+        onRemove.accept(removed);
+    }
+
+    private S create(TickExecutor world) {
+
+        CompletableFuture<S> pending;
+
+        boolean creator = false;
+
+        synchronized (this) {
+
+            S shard = shards.get(world);
+
+            if (Objects.nonNull(shard))
+                return shard;
+
+            pending = creating.get(world);
+
+            if (Objects.isNull(pending)) {
+
+                pending = new CompletableFuture<>();
+
+                creating.put(world, pending);
+
+                creator = true;
+            }
+        }
+
+        if (!creator)
+            return pending.join();
+
+        S shard;
+
+        try {
+
+            shard = factory.apply(world);
+
+        } catch (RuntimeException e) {
+
+            synchronized (this) {
+
+                creating.remove(world, pending);
+
+            }
+
+            pending.completeExceptionally(e);
+
+            throw e;
+        }
+
+        boolean published = false;
+
+        synchronized (this) {
+
+            if (creating.remove(world, pending)
+                    && world.isAlive()) {
+
+                Map<TickExecutor, S> next = new HashMap<>(shards);
+
+                next.put(world, shard);
+
+                shards = Map.copyOf(next);
+
+                published = true;
+            }
+        }
+
+        if (!published) {
+
+            onRemove.accept(shard);
+
+            shard = null;
+
+        }
+
+        pending.complete(shard);
+
+        return shard;
+    }
+}
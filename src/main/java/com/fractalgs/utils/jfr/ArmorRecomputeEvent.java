@@ -0,0 +1,29 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.ArmorRecompute")
+@Label("Armor Recompute")
+@Category({"Fractal Tech", "Armor"})
+@Description("Re-applying one armor piece's effects after a join or an armor change")
+@Enabled(false)
+@StackTrace(false)
+public class ArmorRecomputeEvent extends Event {
+
+    @Label("Piece")
+    public String piece;
+
+    @Label("Tier")
+    public int tier;
+
+    public static void commit(ArmorRecomputeEvent event, String piece, int tier) {
+
+        if (!event.shouldCommit())
+            return;
+
+        event.piece = piece;
+        event.tier = tier;
+
+        event.commit();
+    }
+}
@@ -0,0 +1,36 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.OreChunk")
+@Label("Ore Chunk")
+@Category({"Fractal Tech", "Ore"})
+@Description("Lost ore placed in one chunk")
+@Enabled(false)
+@StackTrace(false)
+public class OreChunkEvent extends Event {
+
+    @Label("World")
+    public String world;
+
+    @Label("Chunk X")
+    public int chunkX;
+
+    @Label("Chunk Z")
+    public int chunkZ;
+
+    @Label("Samples")
+    public int samples;
+
+    @Label("Blocks Placed")
+    public int blocksPlaced;
+
+    @Label("Backfill")
+    @Description("The chunk predates the plugin and was processed on a later load")
+    public boolean backfill;
+
+    @Label("Deferred")
+    @Description("Placed by the budgeted pass on the world thread rather than on load")
+    public boolean deferred;
+
+}
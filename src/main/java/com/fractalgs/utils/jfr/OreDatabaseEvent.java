@@ -0,0 +1,29 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.OreDatabase")
+@Label("Ore Database")
+@Category({"Fractal Tech", "Ore"})
+@Description("Load or save of a processed-chunk database file")
+@Enabled(false)
+@StackTrace(false)
+public class OreDatabaseEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("File")
+    public String file;
+
+    @Label("Chunks")
+    public int chunks;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+}
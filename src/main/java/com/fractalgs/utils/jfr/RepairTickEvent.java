@@ -0,0 +1,19 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.RepairTick")
+@Label("Repair Tick")
+@Category({"Fractal Tech", "Hands"})
+@Description("One step of the Ancient Hands repair loop")
+@Enabled(false)
+@StackTrace(false)
+public class RepairTickEvent extends Event {
+
+    @Label("Item")
+    public String item;
+
+    @Label("Repaired")
+    public boolean repaired;
+
+}
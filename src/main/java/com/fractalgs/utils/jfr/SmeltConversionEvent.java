@@ -0,0 +1,25 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.SmeltConversion")
+@Label("Smelt Conversion")
+@Category({"Fractal Tech", "Hands"})
+@Description("Hands armor turning one held item into its smelted result")
+@Enabled(false)
+@StackTrace(false)
+public class SmeltConversionEvent extends Event {
+
+    @Label("Input")
+    public String input;
+
+    @Label("Output")
+    public String output;
+
+    @Label("Tier")
+    public int tier;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+}
@@ -0,0 +1,76 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+import java.util.Objects;
+
+/**
+ * One escape-button landing search. Column searches can span several ticks, so the duration is
+ * wall time from start to outcome; {@code tries} and {@code blockReads} are the work actually done.
+ * <p>
+ * A search holds its event until the outcome, often from a lambda, so {@link #start} doesn't
+ * allocate one while no recording has the event enabled and hands back {@code null} instead. The
+ * static helpers accept that {@code null}.
+ */
+@Name("com.fractalgs.TeleportSearch")
+@Label("Teleport Search")
+@Category({"Fractal Tech", "Escape"})
+@Description("Safe-landing search for the escape button")
+@Enabled(false)
+@StackTrace(false)
+public class TeleportSearchEvent extends Event {
+
+    public static final String FOUND = "found";
+    public static final String FAILED = "failed";
+    public static final String BUSY = "busy";
+
+    @Label("Strategy")
+    @Description("index, async or column")
+    public String strategy;
+
+    @Label("Tries")
+    public int tries;
+
+    @Label("Block Reads")
+    public int blockReads;
+
+    @Label("Outcome")
+    public String outcome;
+
+    private static final EventType TYPE = EventType.getEventType(TeleportSearchEvent.class);
+
+    /**
+     * Returns a begun event, or {@code null} if the event isn't enabled right now.
+     */
+    public static TeleportSearchEvent start(String strategy) {
+
+        if (!TYPE.isEnabled())
+            return null;
+
+        TeleportSearchEvent event = new TeleportSearchEvent();
+
+        event.strategy = strategy;
+
+        event.begin();
+
+        return event;
+    }
+
+    public static void tried(TeleportSearchEvent event) {
+
+        if (Objects.nonNull(event))
+            event.tries++;
+
+    }
+
+    public static void finish(TeleportSearchEvent event, String outcome) {
+
+        if (Objects.isNull(event)
+                || !event.shouldCommit())
+            return;
+
+        event.outcome = outcome;
+
+        event.commit();
+    }
+}
@@ -0,0 +1,22 @@
+package com.fractalgs.utils.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.fractalgs.ThornsReflect")
+@Label("Thorns Reflect")
+@Category({"Fractal Tech", "Armor"})
+@Description("Damage reflected back to an attacker by Old or Ancient armor")
+@Enabled(false)
+@StackTrace(false)
+public class ThornsReflectEvent extends Event {
+
+    @Label("Armor Tier")
+    public int armorTier;
+
+    @Label("Damage")
+    public float damage;
+
+    @Label("Reflected")
+    public float reflected;
+
+}
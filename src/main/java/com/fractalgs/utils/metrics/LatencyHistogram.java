@@ -0,0 +1,111 @@
+package com.fractalgs.utils.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets.
+ * <p>
+ * Every power of two is split into {@link #SUB_BUCKETS} linear buckets, which bounds the relative
+ * error of any percentile to 12.5% while keeping the whole nanosecond range up to about 18 minutes
+ * in a few hundred buckets. Buckets are striped {@link LongAdder}s, so {@link #record} neither
+ * locks nor allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets[i] = new LongAdder();
+
+    }
+
+    public void record(long nanos) {
+
+        long value = Math.max(0L, Math.min(nanos, MAX_VALUE));
+
+        buckets[bucketIndex(value)].increment();
+
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMean() {
+
+        long samples = count.sum();
+
+        return samples == 0
+                ? 0L
+                : total.sum() / samples;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, in nanoseconds.
+     */
+    public long getPercentile(double percentile) {
+
+        long samples = count.sum();
+
+        if (samples == 0)
+            return 0L;
+
+        long rank = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+
+            seen += buckets[i].sum();
+
+            if (seen >= rank)
+                return Math.min(bucketLowerBound(i + 1) - 1, getMax());
+        }
+
+        return getMax();
+    }
+
+    private static int bucketIndex(long value) {
+
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    private static long bucketLowerBound(int index) {
+
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int mantissa = index % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + mantissa) << (exponent - SUB_BUCKET_BITS);
+    }
+}
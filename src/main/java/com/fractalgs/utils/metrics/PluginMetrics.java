@@ -0,0 +1,206 @@
+package com.fractalgs.utils.metrics;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * Plugin-wide metrics, cheap enough to stay on in production.
+ * <p>
+ * Hot paths record straight into the static histograms and counters below, which is a couple of
+ * {@code LongAdder} updates and no allocation. Gauges are sampled only when the stats are read,
+ * either by {@code /fractal stats} or through JMX under {@link #OBJECT_NAME}.
+ */
+public class PluginMetrics {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public static final String OBJECT_NAME = "com.fractalgs:type=PluginMetrics";
+
+    private static final Map<String, LatencyHistogram> histograms = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, Counter> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public static final LatencyHistogram ORE_CHUNK = histogram("ore.chunk");
+    public static final LatencyHistogram ORE_DB_SAVE = histogram("ore.db.save");
+    public static final LatencyHistogram ORE_DB_LOAD = histogram("ore.db.load");
+    public static final LatencyHistogram ORE_SCAN = histogram("ore.scan");
+    public static final LatencyHistogram ORE_DEFERRED_PASS = histogram("ore.deferred.pass");
+
+    public static final LatencyHistogram CHEST_LISTENER = histogram("chest.listener");
+    public static final LatencyHistogram LEGS_LISTENER = histogram("legs.listener");
+    public static final LatencyHistogram HANDS_LISTENER = histogram("hands.listener");
+    public static final LatencyHistogram LANDING_INDEX_LISTENER = histogram("landing.listener");
+
+    public static final LatencyHistogram JOIN_BATCH = histogram("join.batch");
+
+    public static final LatencyHistogram DAMAGE_HANDLE = histogram("damage.handle");
+
+    public static final LatencyHistogram SMELT_TICK = histogram("hands.smelt.tick");
+    public static final LatencyHistogram REPAIR_TICK = histogram("hands.repair.tick");
+    public static final LatencyHistogram RECIPE_SCAN = histogram("hands.recipes.scan");
+
+    public static final LatencyHistogram TELEPORT_SEARCH_INDEX = histogram("escape.search.index");
+    public static final LatencyHistogram TELEPORT_SEARCH_ASYNC = histogram("escape.search.async");
+    public static final LatencyHistogram TELEPORT_SEARCH_COLUMN = histogram("escape.search.column");
+
+    public static final LatencyHistogram IO_TASK = histogram("io.task");
+
+    public static final Counter ORE_CHUNKS_PROCESSED = counter("ore.chunks.processed");
+    public static final Counter ORE_CHUNKS_BACKFILLED = counter("ore.chunks.backfilled");
+    public static final Counter ORE_DB_BYTES_WRITTEN = counter("ore.db.bytes.written");
+    public static final Counter JOINS = counter("join.players");
+    public static final Counter SMELT_CONVERSIONS = counter("hands.smelt.conversions");
+    public static final Counter REPAIRS = counter("hands.repairs");
+    public static final Counter TELEPORTS = counter("escape.teleports");
+    public static final Counter TELEPORT_SEARCHES_FAILED = counter("escape.failed");
+    public static final Counter IO_REJECTED = counter("io.rejected");
+    public static final Counter IO_FAILURES = counter("io.failures");
+    public static final Counter GADGET_COOLDOWN = counter("gadget.cooldown");
+    public static final Counter GADGET_REJECTED = counter("gadget.rejected");
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    public static void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Flattens every metric into {@code name -> value}, histograms expanded into count, mean,
+     * percentiles and max (latencies in microseconds).
+     */
+    public static Map<String, Long> snapshot() {
+
+        Map<String, Long> values = new TreeMap<>();
+
+        synchronized (histograms) {
+
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+
+                LatencyHistogram histogram = entry.getValue();
+
+                values.put(entry.getKey() + ".count", histogram.getCount());
+                values.put(entry.getKey() + ".mean_us", histogram.getMean() / 1000);
+                values.put(entry.getKey() + ".p50_us", histogram.getPercentile(50) / 1000);
+                values.put(entry.getKey() + ".p99_us", histogram.getPercentile(99) / 1000);
+                values.put(entry.getKey() + ".max_us", histogram.getMax() / 1000);
+
+            }
+        }
+
+        synchronized (counters) {
+
+            for (Map.Entry<String, Counter> entry : counters.entrySet())
+                values.put(entry.getKey(), entry.getValue().get());
+
+        }
+
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+
+            try {
+
+                values.put(entry.getKey(), entry.getValue().getAsLong());
+
+            } catch (Exception e) {
+
+                values.put(entry.getKey(), -1L);
+
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Human-readable summary, one line per metric.
+     */
+    public static List<String> report() {
+
+        List<String> lines = new ArrayList<>();
+
+        synchronized (histograms) {
+
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+
+                LatencyHistogram histogram = entry.getValue();
+
+                lines.add(String.format("%s: n=%d mean=%dus p50=%dus p99=%dus max=%dus",
+                        entry.getKey(),
+                        histogram.getCount(),
+                        histogram.getMean() / 1000,
+                        histogram.getPercentile(50) / 1000,
+                        histogram.getPercentile(99) / 1000,
+                        histogram.getMax() / 1000));
+
+            }
+        }
+
+        synchronized (counters) {
+
+            for (Map.Entry<String, Counter> entry : counters.entrySet())
+                lines.add(entry.getKey() + ": " + entry.getValue().get());
+
+        }
+
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+
+            try {
+
+                lines.add(entry.getKey() + ": " + entry.getValue().getAsLong());
+
+            } catch (Exception e) {
+
+                lines.add(entry.getKey() + ": n/a");
+
+            }
+        }
+
+        return lines;
+    }
+
+    public static void registerMBean() {
+
+        try {
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name))
+                server.registerMBean(new PluginMetricsMBean(), name);
+
+        } catch (Exception e) {
+
+            LOGGER.at(Level.WARNING).log(e.getMessage());
+
+        }
+    }
+
+    public static void unregisterMBean() {
+
+        try {
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+
+        } catch (Exception e) {
+
+            LOGGER.at(Level.WARNING).log(e.getMessage());
+
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.fractalgs.utils.metrics;
+
+import javax.management.*;
+import java.util.Map;
+
+/**
+ * Read-only JMX view of {@link PluginMetrics}: one {@code long} attribute per flattened metric.
+ */
+public class PluginMetricsMBean implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+
+        Long value = PluginMetrics.snapshot().get(attribute);
+
+        if (value == null)
+            throw new AttributeNotFoundException(attribute);
+
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+
+        Map<String, Long> snapshot = PluginMetrics.snapshot();
+
+        AttributeList list = new AttributeList();
+
+        for (String attribute : attributes) {
+
+            Long value = snapshot.get(attribute);
+
+            if (value != null)
+                list.add(new Attribute(attribute, value));
+
+        }
+
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Plugin metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+
+        Map<String, Long> snapshot = PluginMetrics.snapshot();
+
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+
+        int i = 0;
+
+        for (String name : snapshot.keySet())
+            attributes[i++] = new MBeanAttributeInfo(name, "long", name, true, false, false);
+
+        return new MBeanInfo(PluginMetricsMBean.class.getName(), "Fractal Tech plugin metrics",
+                attributes, null, null, null);
+    }
+}